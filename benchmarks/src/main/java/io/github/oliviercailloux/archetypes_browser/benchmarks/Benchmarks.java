@@ -0,0 +1,20 @@
+package io.github.oliviercailloux.archetypes_browser.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks selected by the given JMH command line (all by default),
+ * always with the GC profiler, so that the allocation rate (gc.alloc.rate.norm,
+ * in bytes per operation) is reported along with the throughput.
+ */
+public class Benchmarks {
+	public static void main(String[] args) throws Exception {
+		final Options options = new OptionsBuilder().parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class).build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,108 @@
+package io.github.oliviercailloux.archetypes_browser.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.maven.archetype.catalog.ArchetypeCatalog;
+import org.apache.maven.archetype.catalog.io.xpp3.ArchetypeCatalogXpp3Reader;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import io.github.oliviercailloux.archetypes_browser.Artifact;
+import io.github.oliviercailloux.archetypes_browser.CatalogReader;
+
+/**
+ * Reading the artifacts of the catalog, as a stream with {@link CatalogReader},
+ * and, for comparison, as the crawl used to: into the whole model of the
+ * catalog with {@link ArchetypeCatalogXpp3Reader}, then into the set of its
+ * artifacts. The catalog is the excerpt, repeated the given number of times
+ * (the catalog of Maven Central is about a thousand times the excerpt).
+ * <p>
+ * Besides the allocation rate, reports the peak of the heap used during each
+ * iteration (see {@link Heap}). Both keep the set of the artifacts, which grows
+ * with the catalog as the copies are renamed; but only the model also holds
+ * every entry of the catalog, with its version, description and repository, so
+ * the gap between the two grows with the catalog.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatalogBenchmarks {
+	/**
+	 * The peak of the heap used since the start of the iteration, in bytes, as
+	 * the sum of the peaks of the heap pools. This is an upper bound of the live
+	 * data, as it counts the garbage not yet collected; what matters is how it
+	 * varies with the size of the catalog.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Heap {
+		private static final ImmutableList<MemoryPoolMXBean> POOLS = ManagementFactory.getMemoryPoolMXBeans()
+				.stream().filter(p -> p.getType() == MemoryType.HEAP).collect(ImmutableList.toImmutableList());
+
+		public long peakHeapBytes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			System.gc();
+			POOLS.forEach(MemoryPoolMXBean::resetPeakUsage);
+			peakHeapBytes = 0;
+		}
+
+		private void sample() {
+			peakHeapBytes = POOLS.stream().mapToLong(p -> p.getPeakUsage().getUsed()).sum();
+		}
+	}
+
+	@Param({ "1", "100", "1000" })
+	public int copies;
+
+	private byte[] catalog;
+
+	@Setup
+	public void read() {
+		catalog = Fixtures.getCatalog(copies);
+	}
+
+	@Benchmark
+	public ImmutableSet<Artifact> readCatalog(Heap heap) throws XMLStreamException {
+		final ImmutableSet.Builder<Artifact> artifacts = ImmutableSet.builder();
+		CatalogReader.read(new ByteArrayInputStream(catalog), (artifact, version) -> artifacts.add(artifact));
+		final ImmutableSet<Artifact> read = artifacts.build();
+		heap.sample();
+		return read;
+	}
+
+	@Benchmark
+	public ImmutableSet<Artifact> readCatalogModel(Heap heap) throws IOException, XmlPullParserException {
+		final ArchetypeCatalog model = new ArchetypeCatalogXpp3Reader().read(new ByteArrayInputStream(catalog));
+		final ImmutableSet<Artifact> read = model.getArchetypes().stream()
+				.map(a -> Artifact.given(a.getGroupId(), a.getArtifactId())).collect(ImmutableSet.toImmutableSet());
+		heap.sample();
+		return read;
+	}
+}
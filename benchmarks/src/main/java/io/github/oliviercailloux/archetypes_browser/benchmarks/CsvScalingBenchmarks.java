@@ -0,0 +1,70 @@
+package io.github.oliviercailloux.archetypes_browser.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableSet;
+
+import io.github.oliviercailloux.archetypes_browser.ArtifactWithReleases;
+import io.github.oliviercailloux.archetypes_browser.formats.CsvArtifacts;
+
+/**
+ * The grouped CSV export rendered in parallel, with an increasing number of
+ * threads, to compare with {@link SerializationBenchmarks#writeCsvGrouped()}.
+ * The parallel stream runs in a pool of the given parallelism, rather than in
+ * the common pool, as it uses the pool of the thread that starts it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CsvScalingBenchmarks {
+	@Param({ "1", "2", "4", "8" })
+	public int parallelism;
+
+	@Param({ "30000" })
+	public int size;
+
+	private ImmutableSet<ArtifactWithReleases> artifacts;
+	private ForkJoinPool pool;
+
+	@Setup
+	public void start() {
+		artifacts = Fixtures.getArtifacts(size);
+		pool = new ForkJoinPool(parallelism);
+	}
+
+	@TearDown
+	public void stop() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public void writeCsvGroupedParallel() {
+		pool.submit(() -> {
+			try {
+				CsvArtifacts.toCsvGroupedParallel(artifacts, Writer.nullWriter());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}).join();
+	}
+}
@@ -0,0 +1,93 @@
+package io.github.oliviercailloux.archetypes_browser.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Resources;
+
+import io.github.oliviercailloux.archetypes_browser.Artifact;
+import io.github.oliviercailloux.archetypes_browser.ArtifactRelease;
+import io.github.oliviercailloux.archetypes_browser.ArtifactWithReleases;
+import io.github.oliviercailloux.archetypes_browser.formats.JsonArtifacts;
+
+/**
+ * The data that the benchmarks work on, in the formats served by Maven Central
+ * and written by this project: two directory listings (a short one and one with
+ * about a hundred versions), two POMs (one whose description comes early, one
+ * with no description, that must be read to the end), an excerpt of the
+ * archetype catalog, and a sample of {@code Artifacts.json}.
+ * <p>
+ * Larger data sets are obtained by replicating the samples, renaming the
+ * copies.
+ */
+public class Fixtures {
+	public static final String SHORT_LISTING = "listing-maven-archetype-quickstart.html";
+	public static final String LONG_LISTING = "listing-camel-archetype-java.html";
+	public static final String POM_WITH_DESCRIPTION = "maven-archetype-quickstart-1.4.pom";
+	public static final String POM_WITHOUT_DESCRIPTION = "camel-archetype-java-2.24.0.pom";
+	public static final String CATALOG = "archetype-catalog-excerpt.xml";
+	public static final String ARTIFACTS = "Artifacts.json";
+
+	public static byte[] read(String name) {
+		final URL resource = Fixtures.class.getResource(name);
+		try {
+			return Resources.toByteArray(resource);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @return a catalog listing the given number of copies of the entries of the
+	 *         excerpt, whose artifact ids are suffixed with the number of the copy.
+	 */
+	public static byte[] getCatalog(int copies) {
+		final String excerpt = new String(read(CATALOG), StandardCharsets.UTF_8);
+		final int start = excerpt.indexOf("<archetypes>") + "<archetypes>".length();
+		final int end = excerpt.indexOf("</archetypes>");
+		final String entries = excerpt.substring(start, end);
+		final StringBuilder builder = new StringBuilder(excerpt.substring(0, start));
+		for (int copy = 0; copy < copies; ++copy) {
+			builder.append(entries.replace("</artifactId>", "-" + copy + "</artifactId>"));
+		}
+		builder.append(excerpt.substring(end));
+		return builder.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	public static ImmutableSet<ArtifactWithReleases> getArtifacts() {
+		return JsonArtifacts.withReleasesFromJson(new ByteArrayInputStream(read(ARTIFACTS)));
+	}
+
+	/**
+	 * @return the given number of artifacts, copies of the sample whose
+	 *         artifact ids are suffixed with the number of the copy, in a stable
+	 *         order.
+	 */
+	public static ImmutableSet<ArtifactWithReleases> getArtifacts(int count) {
+		final ImmutableSet<ArtifactWithReleases> sample = getArtifacts();
+		final ImmutableSet.Builder<ArtifactWithReleases> builder = ImmutableSet.builder();
+		int built = 0;
+		for (int copy = 0; built < count; ++copy) {
+			for (ArtifactWithReleases withReleases : sample) {
+				if (built == count) {
+					break;
+				}
+				builder.add(copy(withReleases, copy));
+				++built;
+			}
+		}
+		return builder.build();
+	}
+
+	private static ArtifactWithReleases copy(ArtifactWithReleases withReleases, int copy) {
+		final Artifact original = withReleases.getArtifact();
+		final Artifact artifact = Artifact.given(original.getGroupId(), original.getArtifactId() + "-" + copy);
+		return ArtifactWithReleases.given(withReleases.getReleases().stream()
+				.map(r -> ArtifactRelease.given(artifact, r.getVersion(), r.getDescription(), r.getReleaseDate()))
+				.collect(ImmutableSet.toImmutableSet()));
+	}
+}
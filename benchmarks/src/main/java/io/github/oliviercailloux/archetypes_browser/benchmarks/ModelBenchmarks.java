@@ -0,0 +1,164 @@
+package io.github.oliviercailloux.archetypes_browser.benchmarks;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import io.github.oliviercailloux.archetypes_browser.Analyzer;
+import io.github.oliviercailloux.archetypes_browser.Artifact;
+import io.github.oliviercailloux.archetypes_browser.ArtifactQuery;
+import io.github.oliviercailloux.archetypes_browser.ArtifactRelease;
+import io.github.oliviercailloux.archetypes_browser.ArtifactWithReleases;
+import io.github.oliviercailloux.archetypes_browser.DescriptionIndex;
+import io.github.oliviercailloux.archetypes_browser.ReleaseTable;
+
+/**
+ * Building the model of the crawled artifacts and querying it, for data sets of
+ * about the size of Maven Central (a few thousand archetypes), ten times and a
+ * hundred times that. The largest takes about a gigabyte of heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ModelBenchmarks {
+	private static final Instant START = Instant.parse("2012-01-01T00:00:00Z");
+	private static final Instant END = Instant.parse("2016-01-01T00:00:00Z");
+	private static final ZonedDateTime NOW = Instant.parse("2020-01-01T00:00:00Z").atZone(ZoneOffset.UTC);
+
+	@Param({ "3000", "30000", "300000" })
+	public int size;
+
+	private ImmutableSet<ArtifactWithReleases> artifacts;
+	private ImmutableList<ArtifactRelease> releases;
+	private ImmutableList<Artifact> identifiers;
+	private ReleaseTable table;
+	private DescriptionIndex index;
+
+	@Setup
+	public void build() {
+		artifacts = Fixtures.getArtifacts(size);
+		releases = artifacts.stream().flatMap(a -> a.getReleases().stream())
+				.collect(ImmutableList.toImmutableList());
+		identifiers = artifacts.stream().map(ArtifactWithReleases::getArtifact)
+				.collect(ImmutableList.toImmutableList());
+		table = ReleaseTable.of(artifacts);
+		index = DescriptionIndex.of(artifacts);
+	}
+
+	/**
+	 * Groups releases by artifact, as when reading a crawl.
+	 */
+	@Benchmark
+	public ImmutableSet<ArtifactWithReleases> separate() {
+		return ArtifactWithReleases.separated(releases);
+	}
+
+	@Benchmark
+	public void dateViews(Blackhole blackhole) {
+		for (ArtifactWithReleases withReleases : artifacts) {
+			blackhole.consume(withReleases.getReleasesByDate());
+			blackhole.consume(withReleases.getVersionsByDate());
+			blackhole.consume(withReleases.getVersionsByRealDate());
+		}
+	}
+
+	/**
+	 * The same views, computed anew at each call, as they used to be.
+	 */
+	@Benchmark
+	public void dateViewsRecomputed(Blackhole blackhole) {
+		for (ArtifactWithReleases withReleases : artifacts) {
+			blackhole.consume(RecomputedViews.getReleasesByDate(withReleases));
+			blackhole.consume(withReleases.getVersionsByDate());
+			blackhole.consume(RecomputedViews.getVersionsByRealDate(withReleases));
+		}
+	}
+
+	/**
+	 * Selects the old and maintained artifacts as {@link Analyzer} does, building
+	 * the table of the releases first.
+	 */
+	@Benchmark
+	public ImmutableList<Artifact> analyze() {
+		return Analyzer.getOldAndMaintained(ReleaseTable.of(artifacts), NOW);
+	}
+
+	/**
+	 * The same selection, with predicates on the views of each artifact, as it
+	 * used to be done.
+	 */
+	@Benchmark
+	public ImmutableList<Artifact> analyzeWithViews() {
+		return RecomputedViews.getOldAndMaintained(artifacts, NOW);
+	}
+
+	/**
+	 * Hashes every artifact identifier, as when building the sets and maps keyed
+	 * by artifact.
+	 */
+	@Benchmark
+	public ImmutableSet<Artifact> hashArtifacts() {
+		return ImmutableSet.copyOf(identifiers);
+	}
+
+	@Benchmark
+	public ReleaseTable buildTable() {
+		return ReleaseTable.of(artifacts);
+	}
+
+	@Benchmark
+	public int countInTable() {
+		return table.countReleasedBetween(START, END);
+	}
+
+	/**
+	 * The same count, on the object model, for comparison with the table.
+	 */
+	@Benchmark
+	public long countInModel() {
+		return releases.stream().map(ArtifactRelease::getReleaseDate)
+				.filter(d -> !d.isBefore(START) && d.isBefore(END)).count();
+	}
+
+	@Benchmark
+	public ImmutableList<ArtifactWithReleases> query() {
+		return getQuery().run(artifacts);
+	}
+
+	@Benchmark
+	public ImmutableList<ArtifactWithReleases> queryParallel() {
+		return getQuery().runParallel(artifacts);
+	}
+
+	private static ArtifactQuery getQuery() {
+		return ArtifactQuery.all().withDescriptionContaining("project").withFirstReleaseBefore(END)
+				.sortedBy(Comparator.comparing((ArtifactWithReleases a) -> a.getReleases().size()).reversed())
+				.limit(20);
+	}
+
+	@Benchmark
+	public ImmutableList<Artifact> search() {
+		return index.search("maven project -webapp", 20);
+	}
+}
@@ -0,0 +1,220 @@
+package io.github.oliviercailloux.archetypes_browser.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+
+import org.jsoup.Jsoup;
+import org.jsoup.helper.W3CDom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import com.google.common.base.Verify;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+
+import io.github.oliviercailloux.archetypes_browser.Fetcher;
+import io.github.oliviercailloux.archetypes_browser.ListingParser;
+import io.github.oliviercailloux.archetypes_browser.PomReader;
+
+/**
+ * The parsing of the responses of the repository, as done when crawling: the
+ * directory listing of an artifact (by {@link ListingParser}) and a POM (by
+ * {@link PomReader}). The catalog is in {@link CatalogBenchmarks}.
+ * <p>
+ * For comparison, the listings and the POMs are also parsed as the crawl used
+ * to: the listings through Jsoup and a W3C document, the POMs into a whole W3C
+ * document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParsingBenchmarks {
+	private byte[] shortListing;
+	private byte[] longListing;
+	private byte[] pomWithDescription;
+	private byte[] pomWithoutDescription;
+
+	@Setup
+	public void read() {
+		shortListing = Fixtures.read(Fixtures.SHORT_LISTING);
+		longListing = Fixtures.read(Fixtures.LONG_LISTING);
+		pomWithDescription = Fixtures.read(Fixtures.POM_WITH_DESCRIPTION);
+		pomWithoutDescription = Fixtures.read(Fixtures.POM_WITHOUT_DESCRIPTION);
+	}
+
+	@Benchmark
+	public ImmutableMap<String, Instant> parseShortListing() throws IOException {
+		return ListingParser.parse(new ByteArrayInputStream(shortListing));
+	}
+
+	@Benchmark
+	public ImmutableMap<String, Instant> parseLongListing() throws IOException {
+		return ListingParser.parse(new ByteArrayInputStream(longListing));
+	}
+
+	@Benchmark
+	public ImmutableMap<String, Instant> parseShortListingWithJsoup() {
+		return parseWithJsoup(shortListing);
+	}
+
+	@Benchmark
+	public ImmutableMap<String, Instant> parseLongListingWithJsoup() {
+		return parseWithJsoup(longListing);
+	}
+
+	/**
+	 * Parses a listing as the crawl used to, for comparison with
+	 * {@link ListingParser}: decodes it to a string, parses it with Jsoup,
+	 * converts it to a W3C document, then walks its links.
+	 */
+	private static ImmutableMap<String, Instant> parseWithJsoup(byte[] listing) {
+		final String responseStr = new String(listing, StandardCharsets.UTF_8);
+		final org.jsoup.nodes.Document jsoupDoc = Jsoup.parse(responseStr);
+		final Document doc = new W3CDom().fromJsoup(jsoupDoc);
+
+		final Element docE = doc.getDocumentElement();
+		Verify.verify(docE.getTagName().equals("html"));
+		final NodeList aNodes = docE.getElementsByTagName("a");
+		final Node a0 = aNodes.item(0);
+		Verify.verify(a0.getChildNodes().item(0).getTextContent().equals("../"));
+		final ImmutableSet.Builder<Node> aVersionNodesBuilder = ImmutableSet.builder();
+		int mavenNodes = 0;
+		for (int i = 1; i < aNodes.getLength(); ++i) {
+			final Node aNode = aNodes.item(i);
+			final String href = aNode.getAttributes().getNamedItem("href").getNodeValue();
+			if (href.startsWith("maven-metadata")) {
+				++mavenNodes;
+			} else {
+				Verify.verify(mavenNodes == 0);
+				aVersionNodesBuilder.add(aNode);
+			}
+		}
+		final boolean oldMode = mavenNodes == 0;
+		Verify.verify(oldMode || (mavenNodes >= 3 && mavenNodes <= 9));
+		final Pattern datePattern = Pattern.compile(" *([0-9-]+ [0-9][0-9]:[0-9][0-9]) *- *\n");
+		final Pattern unknownDatePattern = Pattern.compile(" *- *- *\n[ \\t]*");
+		final ImmutableMap.Builder<String, Instant> datesBuilder = ImmutableMap.builder();
+		for (Node aVersion : aVersionNodesBuilder.build()) {
+			final NamedNodeMap attributes = aVersion.getAttributes();
+			final String href = attributes.getNamedItem("href").getNodeValue();
+			final Node titleItem = attributes.getNamedItem("title");
+			if (titleItem == null) {
+				Verify.verify(oldMode);
+			} else {
+				Verify.verify(href.equals(titleItem.getNodeValue()), href);
+			}
+			final NodeList childNodes = aVersion.getChildNodes();
+			Verify.verify(childNodes.getLength() == 1);
+			Verify.verify(childNodes.item(0).getNodeValue().equals(href));
+			Verify.verify(href.endsWith("/"));
+			final String version = href.substring(0, href.length() - 1);
+			final String dateSpaced = aVersion.getNextSibling().getTextContent();
+			final Matcher dateMatcher = datePattern.matcher(dateSpaced);
+			final Matcher unknownDateMatcher = unknownDatePattern.matcher(dateSpaced);
+			final boolean dateMatched = dateMatcher.matches();
+			final boolean unknownDateMatched = unknownDateMatcher.matches();
+			Verify.verify(dateMatched || unknownDateMatched, dateSpaced);
+			final Instant instant;
+			if (unknownDateMatched) {
+				instant = Fetcher.EARLY;
+			} else {
+				final DateTimeFormatter formatter = new DateTimeFormatterBuilder().append(DateTimeFormatter.ISO_DATE)
+						.appendLiteral(' ').append(DateTimeFormatter.ISO_LOCAL_TIME).toFormatter();
+				final LocalDateTime date = formatter.parse(dateMatcher.group(1), LocalDateTime::from);
+				instant = date.toInstant(ZoneOffset.UTC);
+			}
+			datesBuilder.put(version, instant);
+		}
+		return datesBuilder.build();
+	}
+
+	/**
+	 * Stops reading at the description.
+	 */
+	@Benchmark
+	public String readPomWithDescription() throws XMLStreamException {
+		return PomReader.readDescription(new ByteArrayInputStream(pomWithDescription));
+	}
+
+	@Benchmark
+	public String readPomWithoutDescription() throws XMLStreamException {
+		return PomReader.readDescription(new ByteArrayInputStream(pomWithoutDescription));
+	}
+
+	@Benchmark
+	public String readPomWithDescriptionWithDom() throws ParserConfigurationException, SAXException, IOException {
+		return readWithDom(pomWithDescription);
+	}
+
+	@Benchmark
+	public String readPomWithoutDescriptionWithDom() throws ParserConfigurationException, SAXException, IOException {
+		return readWithDom(pomWithoutDescription);
+	}
+
+	/**
+	 * Reads the description of a POM as the crawl used to, for comparison with
+	 * {@link PomReader}: decodes it to a string, builds the whole document with
+	 * a new factory, then looks for the description among the children of the
+	 * root.
+	 */
+	private static String readWithDom(byte[] pom) throws ParserConfigurationException, SAXException, IOException {
+		final String pomStr = new String(pom, StandardCharsets.UTF_8);
+		final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		final DocumentBuilder builder = factory.newDocumentBuilder();
+		final Document document = builder.parse(new InputSource(new StringReader(pomStr)));
+		final Node rootElement = document.getDocumentElement();
+		final NodeList rootChildren = rootElement.getChildNodes();
+		final ImmutableSet.Builder<Node> descriptionChildren = ImmutableSet.builder();
+		for (int i = 0; i < rootChildren.getLength(); ++i) {
+			final Node child = rootChildren.item(i);
+			if (child.getNodeName().equalsIgnoreCase("description")) {
+				descriptionChildren.add(child);
+			}
+		}
+		final ImmutableSet<Node> descriptions = descriptionChildren.build();
+		if (descriptions.isEmpty()) {
+			return "";
+		}
+		Verify.verify(descriptions.size() == 1);
+		final NodeList descriptionNodeChildren = Iterables.getOnlyElement(descriptions).getChildNodes();
+		Verify.verify(descriptionNodeChildren.getLength() == 1);
+		final Node descriptionContent = descriptionNodeChildren.item(0);
+		Verify.verify(descriptionContent.getChildNodes().getLength() == 0);
+		Verify.verify(descriptionContent.getNodeType() == Node.TEXT_NODE);
+		return descriptionContent.getNodeValue();
+	}
+}
@@ -0,0 +1,97 @@
+package io.github.oliviercailloux.archetypes_browser.benchmarks;
+
+import java.io.Writer;
+import java.time.Instant;
+import java.time.Period;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimaps;
+import com.univocity.parsers.csv.CsvWriter;
+import com.univocity.parsers.csv.CsvWriterSettings;
+
+import io.github.oliviercailloux.archetypes_browser.Artifact;
+import io.github.oliviercailloux.archetypes_browser.ArtifactRelease;
+import io.github.oliviercailloux.archetypes_browser.ArtifactWithReleases;
+import io.github.oliviercailloux.archetypes_browser.Fetcher;
+
+/**
+ * The date views of {@link ArtifactWithReleases} computed anew at each call, as
+ * they used to be, and the uses of these views as they used to be, for
+ * comparison with the views computed once.
+ */
+public class RecomputedViews {
+	public static ImmutableSortedMap<Instant, ImmutableSet<ArtifactRelease>> getReleasesByDate(
+			ArtifactWithReleases withReleases) {
+		final ImmutableSetMultimap<Instant, ArtifactRelease> multi = withReleases.getReleases().stream()
+				.collect(ImmutableSetMultimap.toImmutableSetMultimap(ArtifactRelease::getReleaseDate, a -> a));
+		final Map<Instant, Set<ArtifactRelease>> asMap = Multimaps.asMap(multi);
+		return multi.keySet().stream().collect(ImmutableSortedMap.toImmutableSortedMap(Comparator.naturalOrder(),
+				i -> i, i -> ImmutableSet.copyOf(asMap.get(i))));
+	}
+
+	public static ImmutableSortedMap<Instant, ImmutableSet<String>> getVersionsByRealDate(
+			ArtifactWithReleases withReleases) {
+		return ImmutableSortedMap
+				.copyOf(Maps.filterKeys(withReleases.getVersionsByDate(), i -> !i.equals(Fetcher.EARLY)));
+	}
+
+	/**
+	 * Writes the same as {@code CsvArtifacts#toCsvGrouped(Iterator, Writer)}, as
+	 * it used to: asking three times per artifact for the versions by real date,
+	 * and once for the releases by date.
+	 */
+	public static void toCsvGrouped(Iterator<ArtifactWithReleases> artifacts, Writer destination) {
+		final CsvWriter writer = new CsvWriter(destination, new CsvWriterSettings());
+		writer.writeHeaders("groupId", "artifactId", "latest description", "earliest release (real) date",
+				"latest release (real) date");
+		while (artifacts.hasNext()) {
+			final ArtifactWithReleases artifact = artifacts.next();
+			if (getVersionsByRealDate(artifact).isEmpty()) {
+				continue;
+			}
+			writer.addValue("groupId", artifact.getArtifact().getGroupId());
+			writer.addValue("artifactId", artifact.getArtifact().getArtifactId());
+			final ImmutableSet<ArtifactRelease> latestReleases = getReleasesByDate(artifact).lastEntry().getValue();
+			final ImmutableSet<String> latestDescriptions = latestReleases.stream().map(ArtifactRelease::getDescription)
+					.collect(ImmutableSet.toImmutableSet());
+			final String latestDescription = latestDescriptions.size() == 1
+					? Iterables.getOnlyElement(latestDescriptions)
+					: latestDescriptions.toString();
+			writer.addValue("latest description", latestDescription);
+			writer.addValue("earliest release (real) date", DateTimeFormatter.BASIC_ISO_DATE
+					.format(getVersionsByRealDate(artifact).firstKey().atZone(ZoneOffset.UTC)));
+			writer.addValue("latest release (real) date", DateTimeFormatter.BASIC_ISO_DATE
+					.format(getVersionsByRealDate(artifact).lastKey().atZone(ZoneOffset.UTC)));
+			writer.writeValuesToRow();
+		}
+		writer.close();
+	}
+
+	/**
+	 * Selects the same artifacts as
+	 * {@code Analyzer#getOldAndMaintained(ReleaseTable, ZonedDateTime)}, as it
+	 * used to: with predicates on the views of each artifact.
+	 */
+	public static ImmutableList<Artifact> getOldAndMaintained(Set<ArtifactWithReleases> artifacts,
+			ZonedDateTime now) {
+		final Predicate<ArtifactWithReleases> isOld = a -> a.getVersionsByDate().firstEntry().getKey()
+				.atZone(ZoneOffset.UTC).compareTo(now.minus(Period.ofYears(5))) < 0;
+		final Predicate<ArtifactWithReleases> isMaintained = a -> a.getVersionsByDate().lastEntry().getKey()
+				.atZone(ZoneOffset.UTC).compareTo(now.minus(Period.ofYears(1))) > 0;
+		return artifacts.stream().filter(isOld).filter(isMaintained).map(ArtifactWithReleases::getArtifact)
+				.collect(ImmutableList.toImmutableList());
+	}
+}
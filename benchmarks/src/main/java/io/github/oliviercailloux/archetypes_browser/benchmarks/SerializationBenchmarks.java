@@ -0,0 +1,132 @@
+package io.github.oliviercailloux.archetypes_browser.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.ImmutableSet;
+
+import io.github.oliviercailloux.archetypes_browser.ArtifactWithReleases;
+import io.github.oliviercailloux.archetypes_browser.formats.BinaryArtifacts;
+import io.github.oliviercailloux.archetypes_browser.formats.CsvArtifacts;
+import io.github.oliviercailloux.archetypes_browser.formats.JsonArtifacts;
+import io.github.oliviercailloux.archetypes_browser.formats.ReleaseStore;
+
+/**
+ * Reading and writing the crawled artifacts in the formats of this project.
+ * Outputs are discarded, so that only the encoding is measured; inputs are read
+ * from memory, except for the binary snapshot, which is read from a temporary
+ * file (usually in the page cache).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmarks {
+	@Param({ "3000", "30000" })
+	public int size;
+
+	private ImmutableSet<ArtifactWithReleases> artifacts;
+	private byte[] json;
+	private Path snapshot;
+
+	@Setup
+	public void write() throws IOException {
+		artifacts = Fixtures.getArtifacts(size);
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (JsonArtifacts.ReleasesWriter writer = JsonArtifacts.writer(output)) {
+			artifacts.forEach(writer::write);
+		}
+		json = output.toByteArray();
+		snapshot = Files.createTempFile("Artifacts", ".bin");
+		BinaryArtifacts.write(artifacts, snapshot);
+	}
+
+	@TearDown(Level.Trial)
+	public void delete() throws IOException {
+		Files.delete(snapshot);
+	}
+
+	@Benchmark
+	public ImmutableSet<ArtifactWithReleases> readJson() {
+		return JsonArtifacts.withReleasesFromJson(new ByteArrayInputStream(json));
+	}
+
+	/**
+	 * Through JSON-B, with the whole document in memory.
+	 */
+	@Benchmark
+	public Set<ArtifactWithReleases> readJsonBound() {
+		return JsonArtifacts.withReleasesFromJson(new String(json, StandardCharsets.UTF_8));
+	}
+
+	@Benchmark
+	public void writeJson() {
+		try (JsonArtifacts.ReleasesWriter writer = JsonArtifacts.writer(OutputStream.nullOutputStream())) {
+			artifacts.forEach(writer::write);
+		}
+	}
+
+	@Benchmark
+	public String writeJsonBound() {
+		return JsonArtifacts.withReleasesToJson(artifacts).toString();
+	}
+
+	@Benchmark
+	public ImmutableSet<ArtifactWithReleases> readBinary() throws IOException {
+		return BinaryArtifacts.read(snapshot);
+	}
+
+	/**
+	 * Maps the snapshot and decodes every artifact from it.
+	 */
+	@Benchmark
+	public void readStore(Blackhole blackhole) throws IOException {
+		for (ArtifactWithReleases withReleases : ReleaseStore.open(snapshot)) {
+			blackhole.consume(withReleases);
+		}
+	}
+
+	@Benchmark
+	public void writeCsv() {
+		CsvArtifacts.toCsv(artifacts.stream().flatMap(a -> a.getReleases().stream()).iterator(), Writer.nullWriter());
+	}
+
+	@Benchmark
+	public void writeCsvGrouped() {
+		CsvArtifacts.toCsvGrouped(artifacts.iterator(), Writer.nullWriter());
+	}
+
+	/**
+	 * The same export, with the views of each artifact computed anew at each
+	 * call, as they used to be.
+	 */
+	@Benchmark
+	public void writeCsvGroupedRecomputed() {
+		RecomputedViews.toCsvGrouped(artifacts.iterator(), Writer.nullWriter());
+	}
+}
@@ -0,0 +1,227 @@
+package io.github.oliviercailloux.archetypes_browser.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import javax.ws.rs.client.ClientResponseFilter;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.github.oliviercailloux.archetypes_browser.Artifact;
+import io.github.oliviercailloux.archetypes_browser.HttpRepository;
+import io.github.oliviercailloux.http.PooledClient;
+import io.github.oliviercailloux.http.RequestScheduler;
+import io.github.oliviercailloux.http.ValidatorStore;
+
+/**
+ * Fetching and parsing the long listing and the POM without description from a
+ * local server, by concurrent threads, through each of the transports of
+ * {@link PooledClient}: a pool of HTTP/1.1 connections with plain responses;
+ * the same, asking for compressed responses; and the JDK client, asking for
+ * compressed responses (the local server speaks only HTTP/1.1, so this measures
+ * the connector, not multiplexing).
+ * <p>
+ * The server can emulate a slow link, by waiting before each response as long
+ * as sending its body at the given rate would take (0 for no wait). The size of
+ * the bodies received, as encoded, is reported per request (see
+ * {@link Transfer}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class TransportBenchmarks {
+	private static final Artifact ARTIFACT = Artifact.given("org.apache.camel.archetypes", "camel-archetype-java");
+
+	private static final String VERSION = "2.24.0";
+
+	/**
+	 * The bytes of the bodies received by the current thread, as encoded, since
+	 * last counted.
+	 */
+	private static final ThreadLocal<long[]> RECEIVED = ThreadLocal.withInitial(() -> new long[1]);
+
+	/**
+	 * The bytes of the bodies received per request, as encoded, by the first
+	 * thread: JMH sums the counters of the threads, whereas the size of a
+	 * response does not depend on the thread that asked for it.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Transfer {
+		private boolean reporting;
+		private long bytes;
+		private long requests;
+
+		public long bytesPerRequest;
+
+		@Setup(Level.Iteration)
+		public void reset(ThreadParams threadParams) {
+			reporting = threadParams.getThreadIndex() == 0;
+			bytes = 0;
+			requests = 0;
+			bytesPerRequest = 0;
+			RECEIVED.get()[0] = 0;
+		}
+
+		private void count() {
+			final long[] received = RECEIVED.get();
+			bytes += received[0];
+			received[0] = 0;
+			++requests;
+			if (reporting) {
+				bytesPerRequest = bytes / requests;
+			}
+		}
+	}
+
+	@Param({ "pooled", "compressed", "multiplexed" })
+	public String transport;
+
+	@Param({ "0", "1000" })
+	public int kilobytesPerSecond;
+
+	private HttpServer server;
+	private ExecutorService executor;
+	private ImmutableMap<String, byte[]> plainBodies;
+	private ImmutableMap<String, byte[]> compressedBodies;
+	private HttpRepository repository;
+
+	@Setup
+	public void start() throws IOException {
+		final String directory = "/maven2/" + ARTIFACT.getGroupIdSlashSeparated() + "/" + ARTIFACT.getArtifactId()
+				+ "/";
+		plainBodies = ImmutableMap.of(directory, Fixtures.read(Fixtures.LONG_LISTING),
+				directory + VERSION + "/" + ARTIFACT.getArtifactId() + "-" + VERSION + ".pom",
+				Fixtures.read(Fixtures.POM_WITHOUT_DESCRIPTION));
+		compressedBodies = ImmutableMap.copyOf(Maps.transformValues(plainBodies, TransportBenchmarks::gzip));
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		executor = Executors.newCachedThreadPool();
+		server.setExecutor(executor);
+		server.createContext("/", this::handle);
+		server.start();
+
+		final URI uri = URI.create("http://" + server.getAddress().getHostString() + ":"
+				+ server.getAddress().getPort() + "/maven2/");
+		final PooledClient client;
+		switch (transport) {
+		case "pooled":
+			client = PooledClient.given(4, 4, PooledClient.DEFAULT_CONNECT_TIMEOUT, PooledClient.DEFAULT_READ_TIMEOUT);
+			break;
+		case "compressed":
+			client = PooledClient.compressed(4, 4, PooledClient.DEFAULT_CONNECT_TIMEOUT,
+					PooledClient.DEFAULT_READ_TIMEOUT);
+			break;
+		case "multiplexed":
+			client = PooledClient.multiplexed(PooledClient.DEFAULT_CONNECT_TIMEOUT, PooledClient.DEFAULT_READ_TIMEOUT);
+			break;
+		default:
+			throw new IllegalArgumentException(transport);
+		}
+		/** Runs in the thread that sent the request, before the body is decoded. */
+		client.getClient().register((ClientResponseFilter) (request, response) -> RECEIVED.get()[0] += Math
+				.max(response.getLength(), 0));
+		repository = HttpRepository.given(uri, RequestScheduler.direct(4), client, ValidatorStore.empty(),
+				Optional.empty());
+	}
+
+	private static byte[] gzip(byte[] content) {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+			gzip.write(content);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return output.toByteArray();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			final String path = exchange.getRequestURI().getPath();
+			final List<String> encodings = exchange.getRequestHeaders().getOrDefault("Accept-Encoding",
+					ImmutableList.of());
+			final boolean compressed = encodings.stream().anyMatch(e -> e.contains("gzip"));
+			final byte[] body = compressed ? compressedBodies.get(path) : plainBodies.get(path);
+			if (body == null) {
+				exchange.sendResponseHeaders(404, -1);
+				return;
+			}
+			if (kilobytesPerSecond > 0) {
+				Thread.sleep(body.length / kilobytesPerSecond);
+			}
+			exchange.getResponseHeaders().add("Content-Type", "text/html");
+			if (compressed) {
+				exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+			}
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream output = exchange.getResponseBody()) {
+				output.write(body);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			exchange.sendResponseHeaders(503, -1);
+		} finally {
+			exchange.close();
+		}
+	}
+
+	@TearDown
+	public void stop() {
+		repository.close();
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	@Benchmark
+	public Optional<ImmutableMap<String, Instant>> getVersions(Transfer transfer) {
+		final Optional<ImmutableMap<String, Instant>> versions = repository.getVersions(ARTIFACT, false);
+		transfer.count();
+		return versions;
+	}
+
+	/**
+	 * Reads the whole POM, as it has no description.
+	 */
+	@Benchmark
+	public Optional<String> getDescription(Transfer transfer) {
+		final Optional<String> description = repository.getDescription(ARTIFACT, VERSION, false);
+		transfer.count();
+		return description;
+	}
+}
@@ -1,66 +1,88 @@
 package io.github.oliviercailloux.archetypes_browser;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
 import java.time.Period;
 import java.time.ZoneOffset;
-import java.util.Comparator;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
 import java.util.Set;
-import java.util.function.Predicate;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Verify;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableSet;
 
+import io.github.oliviercailloux.archetypes_browser.formats.BinaryArtifacts;
 import io.github.oliviercailloux.archetypes_browser.formats.CsvArtifacts;
 import io.github.oliviercailloux.archetypes_browser.formats.JsonArtifacts;
+import io.github.oliviercailloux.archetypes_browser.formats.ReleaseStore;
+import io.github.oliviercailloux.metrics.Metrics;
 
 public class Analyzer {
 	@SuppressWarnings("unused")
 	private static final Logger LOGGER = LoggerFactory.getLogger(Analyzer.class);
 
+	/**
+	 * A snapshot of {@link Fetcher#OUTPUT_PATH}, re-created when older than it.
+	 */
+	public static final Path SNAPSHOT_PATH = Path.of("Artifacts.bin");
+
 	public static void main(String[] args) throws Exception {
 		LOGGER.info("Reading.");
-		final Set<ArtifactWithReleases> artifacts = JsonArtifacts
-				.withReleasesFromJson(Files.readString(Fetcher.OUTPUT_PATH));
+		final Metrics metrics = Metrics.create();
+		final Metrics.Timing reading = metrics.start("deserialization");
+		final Set<ArtifactWithReleases> artifacts;
+		if (Files.exists(SNAPSHOT_PATH) && Files.getLastModifiedTime(SNAPSHOT_PATH)
+				.compareTo(Files.getLastModifiedTime(Fetcher.OUTPUT_PATH)) > 0) {
+			artifacts = ReleaseStore.open(SNAPSHOT_PATH);
+		} else {
+			try (InputStream input = new BufferedInputStream(Files.newInputStream(Fetcher.OUTPUT_PATH))) {
+				artifacts = JsonArtifacts.withReleasesFromJson(input);
+			}
+			BinaryArtifacts.write(artifacts, SNAPSHOT_PATH);
+		}
+		reading.close();
 		LOGGER.info("Read.");
+		final Metrics.Timing exporting = metrics.start("serialization");
 		toCsv(artifacts);
 		toCsvGrouped(artifacts);
+		exporting.close();
+		LOGGER.info("Exported: {}.", metrics.getLatencies());
 		analyze(artifacts);
 	}
 
 	private static void toCsvGrouped(Set<ArtifactWithReleases> artifacts) throws IOException {
-		final String csv = CsvArtifacts.toCsvGrouped(artifacts);
-		Files.writeString(Path.of("Artifacts grouped.csv"), csv);
+		CsvArtifacts.toCsvGrouped(artifacts.stream(), Path.of("Artifacts grouped.csv"));
 	}
 
 	private static void toCsv(Set<ArtifactWithReleases> artifacts) throws IOException {
-		final ImmutableSet<ArtifactRelease> all = artifacts.stream().flatMap(a -> a.getReleases().stream())
-				.collect(ImmutableSet.toImmutableSet());
-		final String csv = CsvArtifacts.toCsv(all);
-		Files.writeString(Path.of("Artifacts.csv"), csv);
+		CsvArtifacts.toCsv(artifacts.stream().flatMap(a -> a.getReleases().stream()), Path.of("Artifacts.csv"));
 	}
 
 	private static void analyze(Set<ArtifactWithReleases> allWithReleases) {
-		final ImmutableSet<Instant> earliests = allWithReleases.stream()
-				.map((a) -> a.getVersionsByDate().keySet().first()).sorted(Comparator.naturalOrder()).distinct()
-				.limit(2).collect(ImmutableSet.toImmutableSet());
-		Verify.verify(earliests.iterator().next().equals(Fetcher.EARLY));
-		LOGGER.info("Earliest with date: {}.", earliests.asList().get(1));
+		final ReleaseTable table = ReleaseTable.of(allWithReleases);
+		final long[] earliests = Arrays.stream(table.getEarliestEpochSeconds()).sorted().distinct().limit(2).toArray();
+		Verify.verify(earliests[0] == Fetcher.EARLY.getEpochSecond());
+		LOGGER.info("Earliest with date: {}.", Instant.ofEpochSecond(earliests[1]));
 
-		final Predicate<? super ArtifactWithReleases> isOld = (a) -> a.getVersionsByDate().firstEntry().getKey()
-				.atZone(ZoneOffset.UTC).compareTo(Instant.now().atZone(ZoneOffset.UTC).minus(Period.ofYears(5))) < 0;
-		final Predicate<? super ArtifactWithReleases> isMaintained = (a) -> a.getVersionsByDate().lastEntry().getKey()
-				.atZone(ZoneOffset.UTC).compareTo(Instant.now().atZone(ZoneOffset.UTC).minus(Period.ofYears(1))) > 0;
-		final ImmutableList<ArtifactWithReleases> chosen = allWithReleases.stream().filter(isOld).filter(isMaintained)
-				.collect(ImmutableList.toImmutableList());
-		for (ArtifactWithReleases artifact : chosen) {
-			LOGGER.info("Winners: {}.", artifact.getArtifact());
+		final ImmutableList<Artifact> chosen = getOldAndMaintained(table, Instant.now().atZone(ZoneOffset.UTC));
+		for (Artifact artifact : chosen) {
+			LOGGER.info("Winners: {}.", artifact);
 		}
 	}
+
+	/**
+	 * @return the artifacts first released more than five years before the given
+	 *         moment, and last released less than a year before it.
+	 */
+	public static ImmutableList<Artifact> getOldAndMaintained(ReleaseTable table, ZonedDateTime now) {
+		return table.getArtifactsReleasedBeforeAndAfter(now.minus(Period.ofYears(5)).toInstant(),
+				now.minus(Period.ofYears(1)).toInstant());
+	}
 }
@@ -0,0 +1,173 @@
+package io.github.oliviercailloux.archetypes_browser;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A query over artifacts with their releases: a conjunction of filters,
+ * optionally followed by a sort and a limit. Dates are those of
+ * {@link ArtifactWithReleases#getVersionsByDate()}, thus include unknown
+ * dates, as {@link Fetcher#EARLY}.
+ * <p>
+ * A query runs sequentially or in parallel, with the same result, provided
+ * that the given set has a defined iteration order (as immutable and linked
+ * sets do): that order is kept, except as changed by a sort, which is stable.
+ * <p>
+ * Immutable.
+ */
+public class ArtifactQuery {
+	public static final Comparator<ArtifactWithReleases> BY_ARTIFACT = Comparator
+			.comparing((ArtifactWithReleases a) -> a.getArtifact().getGroupId())
+			.thenComparing(a -> a.getArtifact().getArtifactId());
+
+	public static final Comparator<ArtifactWithReleases> BY_FIRST_RELEASE = Comparator
+			.comparing(ArtifactQuery::getFirstRelease);
+
+	public static final Comparator<ArtifactWithReleases> BY_LAST_RELEASE = Comparator
+			.comparing(ArtifactQuery::getLastRelease);
+
+	public static final Comparator<ArtifactWithReleases> BY_RELEASE_COUNT = Comparator
+			.comparingInt(a -> a.getReleases().size());
+
+	/**
+	 * Returns the query that selects every artifact.
+	 */
+	public static ArtifactQuery all() {
+		return new ArtifactQuery(ImmutableList.of(), Optional.empty(), Optional.empty());
+	}
+
+	private static Instant getFirstRelease(ArtifactWithReleases artifact) {
+		return artifact.getVersionsByDate().firstKey();
+	}
+
+	private static Instant getLastRelease(ArtifactWithReleases artifact) {
+		return artifact.getVersionsByDate().lastKey();
+	}
+
+	private final ImmutableList<Predicate<ArtifactWithReleases>> filters;
+	private final Optional<Comparator<ArtifactWithReleases>> order;
+	private final Optional<Integer> limit;
+
+	private ArtifactQuery(ImmutableList<Predicate<ArtifactWithReleases>> filters,
+			Optional<Comparator<ArtifactWithReleases>> order, Optional<Integer> limit) {
+		this.filters = checkNotNull(filters);
+		this.order = checkNotNull(order);
+		this.limit = checkNotNull(limit);
+	}
+
+	/**
+	 * Returns this query, further restricted to the artifacts that match the
+	 * given filter.
+	 */
+	public ArtifactQuery filter(Predicate<ArtifactWithReleases> filter) {
+		checkNotNull(filter);
+		return new ArtifactQuery(ImmutableList.<Predicate<ArtifactWithReleases>>builder().addAll(filters).add(filter)
+				.build(), order, limit);
+	}
+
+	/**
+	 * The whole group id must match.
+	 */
+	public ArtifactQuery withGroupIdMatching(Pattern pattern) {
+		return filter(a -> pattern.matcher(a.getArtifact().getGroupId()).matches());
+	}
+
+	/**
+	 * The whole artifact id must match.
+	 */
+	public ArtifactQuery withArtifactIdMatching(Pattern pattern) {
+		return filter(a -> pattern.matcher(a.getArtifact().getArtifactId()).matches());
+	}
+
+	public ArtifactQuery withFirstReleaseBefore(Instant instant) {
+		return filter(a -> getFirstRelease(a).isBefore(instant));
+	}
+
+	public ArtifactQuery withFirstReleaseAfter(Instant instant) {
+		return filter(a -> getFirstRelease(a).isAfter(instant));
+	}
+
+	public ArtifactQuery withLastReleaseBefore(Instant instant) {
+		return filter(a -> getLastRelease(a).isBefore(instant));
+	}
+
+	public ArtifactQuery withLastReleaseAfter(Instant instant) {
+		return filter(a -> getLastRelease(a).isAfter(instant));
+	}
+
+	/**
+	 * @param min inclusive.
+	 * @param max inclusive.
+	 */
+	public ArtifactQuery withReleaseCountBetween(int min, int max) {
+		checkArgument(min <= max);
+		return filter(a -> a.getReleases().size() >= min && a.getReleases().size() <= max);
+	}
+
+	/**
+	 * Keeps the artifacts of which some release has a description that contains
+	 * the given keyword, ignoring case.
+	 */
+	public ArtifactQuery withDescriptionContaining(String keyword) {
+		final String lowerKeyword = keyword.toLowerCase(Locale.ROOT);
+		return filter(a -> a.getReleases().stream()
+				.anyMatch(r -> r.getDescription().toLowerCase(Locale.ROOT).contains(lowerKeyword)));
+	}
+
+	/**
+	 * Returns this query with its results sorted by the given order, replacing any
+	 * previous order.
+	 */
+	public ArtifactQuery sortedBy(Comparator<ArtifactWithReleases> order) {
+		return new ArtifactQuery(filters, Optional.of(order), limit);
+	}
+
+	/**
+	 * Returns this query with its results limited to the given number (after
+	 * sorting, if sorted).
+	 */
+	public ArtifactQuery limit(int limit) {
+		checkArgument(limit >= 0);
+		return new ArtifactQuery(filters, order, Optional.of(limit));
+	}
+
+	public ImmutableList<ArtifactWithReleases> run(Set<ArtifactWithReleases> artifacts) {
+		return run(artifacts.stream());
+	}
+
+	/**
+	 * Runs this query on all cores, using the common fork-join pool.
+	 */
+	public ImmutableList<ArtifactWithReleases> runParallel(Set<ArtifactWithReleases> artifacts) {
+		return run(artifacts.parallelStream());
+	}
+
+	private ImmutableList<ArtifactWithReleases> run(Stream<ArtifactWithReleases> artifacts) {
+		Stream<ArtifactWithReleases> stream = artifacts.filter(a -> filters.stream().allMatch(f -> f.test(a)));
+		if (order.isPresent()) {
+			stream = stream.sorted(order.get());
+		}
+		if (limit.isPresent()) {
+			stream = stream.limit(limit.get());
+		}
+		return stream.collect(ImmutableList.toImmutableList());
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this).add("filters", filters.size()).add("sorted", order.isPresent())
+				.add("limit", limit).toString();
+	}
+}
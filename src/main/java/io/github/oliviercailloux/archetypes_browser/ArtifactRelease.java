@@ -5,8 +5,16 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import java.time.Instant;
 
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 
 public class ArtifactRelease {
+	/**
+	 * Most artifacts keep the same description across their releases, so
+	 * releases share a single copy of each description.
+	 */
+	private static final Interner<String> DESCRIPTIONS = Interners.newWeakInterner();
+
 	public static ArtifactRelease given(Artifact artifact, String version, String description, Instant releaseDate) {
 		return new ArtifactRelease(artifact, version, description, releaseDate);
 	}
@@ -20,7 +28,7 @@ public class ArtifactRelease {
 	private ArtifactRelease(Artifact artifact, String version, String description, Instant releaseDate) {
 		this.artifact = checkNotNull(artifact);
 		this.version = checkNotNull(version);
-		this.description = checkNotNull(description);
+		this.description = DESCRIPTIONS.intern(checkNotNull(description));
 		this.releaseDate = checkNotNull(releaseDate);
 	}
 
@@ -40,6 +48,22 @@ public class ArtifactRelease {
 		return releaseDate;
 	}
 
+	@Override
+	public boolean equals(Object o2) {
+		if (!(o2 instanceof ArtifactRelease)) {
+			return false;
+		}
+		final ArtifactRelease r2 = (ArtifactRelease) o2;
+		return artifact.equals(r2.artifact) && version.equals(r2.version) && description.equals(r2.description)
+				&& releaseDate.equals(r2.releaseDate);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * (31 * artifact.hashCode() + version.hashCode()) + description.hashCode())
+				+ releaseDate.hashCode();
+	}
+
 	@Override
 	public String toString() {
 		return MoreObjects.toStringHelper(this).add("artifact", artifact).add("version", version)
@@ -4,19 +4,19 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 import java.time.Instant;
 import java.util.Collection;
-import java.util.Comparator;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Maps;
-import com.google.common.collect.MoreCollectors;
 import com.google.common.collect.Multimaps;
 
 public class ArtifactWithReleases {
@@ -43,26 +43,34 @@ public class ArtifactWithReleases {
 	 * Also, some releases have unknown release date, and it is convenient to use a
 	 * single value for all those.
 	 */
+	private final ImmutableSortedMap<Instant, ImmutableSet<ArtifactRelease>> releasesByDate;
 	private final ImmutableSortedMap<Instant, ImmutableSet<String>> versionsByDate;
+	/**
+	 * Computed on first use, as many uses of this object do not need it.
+	 */
+	private final Supplier<ImmutableSortedMap<Instant, ImmutableSet<String>>> versionsByRealDate;
+	/**
+	 * Computed once, as artifacts are hashed again and again when used as keys.
+	 */
+	private final int hashCode;
 
 	private ArtifactWithReleases(Set<ArtifactRelease> releases) {
 		checkArgument(!releases.isEmpty());
-		this.artifact = releases.stream().map(ArtifactRelease::getArtifact).distinct()
-				.collect(MoreCollectors.onlyElement());
 		this.releases = ImmutableSet.copyOf(releases);
+		this.artifact = this.releases.iterator().next().getArtifact();
 
-		final ImmutableSetMultimap.Builder<Instant, String> builder = ImmutableSetMultimap.builder();
-		for (ArtifactRelease release : releases) {
-			builder.put(release.getReleaseDate(), release.getVersion());
-		}
-		final Map<Instant, Set<String>> versions = Multimaps.asMap(builder.build());
-		final ImmutableSortedMap.Builder<Instant, ImmutableSet<String>> sortedBuilder = ImmutableSortedMap
-				.naturalOrder();
-		final Set<Entry<Instant, Set<String>>> versionsEntries = versions.entrySet();
-		for (Entry<Instant, Set<String>> entry : versionsEntries) {
-			sortedBuilder.put(entry.getKey(), ImmutableSet.copyOf(entry.getValue()));
+		final SortedMap<Instant, ImmutableSet.Builder<ArtifactRelease>> builders = new TreeMap<>();
+		for (ArtifactRelease release : this.releases) {
+			checkArgument(release.getArtifact().equals(artifact));
+			builders.computeIfAbsent(release.getReleaseDate(), d -> ImmutableSet.builder()).add(release);
 		}
-		versionsByDate = sortedBuilder.build();
+		releasesByDate = ImmutableSortedMap.copyOfSorted(Maps.transformValues(builders, ImmutableSet.Builder::build));
+		versionsByDate = ImmutableSortedMap.copyOfSorted(Maps.transformValues(releasesByDate,
+				r -> r.stream().map(ArtifactRelease::getVersion).collect(ImmutableSet.toImmutableSet())));
+		versionsByRealDate = Suppliers.memoize(() -> versionsByDate.containsKey(Fetcher.EARLY)
+				? ImmutableSortedMap.copyOfSorted(Maps.filterKeys(versionsByDate, i -> !i.equals(Fetcher.EARLY)))
+				: versionsByDate);
+		hashCode = 31 * artifact.hashCode() + this.releases.hashCode();
 	}
 
 	public Artifact getArtifact() {
@@ -74,11 +82,7 @@ public class ArtifactWithReleases {
 	}
 
 	public ImmutableSortedMap<Instant, ImmutableSet<ArtifactRelease>> getReleasesByDate() {
-		final ImmutableSetMultimap<Instant, ArtifactRelease> multi = releases.stream()
-				.collect(ImmutableSetMultimap.toImmutableSetMultimap(ArtifactRelease::getReleaseDate, a -> a));
-		final Map<Instant, Set<ArtifactRelease>> asMap = Multimaps.asMap(multi);
-		return multi.keySet().stream().collect(ImmutableSortedMap.toImmutableSortedMap(Comparator.naturalOrder(),
-				i -> i, i -> ImmutableSet.copyOf(asMap.get(i))));
+		return releasesByDate;
 	}
 
 	public ImmutableSortedMap<Instant, ImmutableSet<String>> getVersionsByDate() {
@@ -96,6 +100,20 @@ public class ArtifactWithReleases {
 		 * https://repo.maven.apache.org/maven2/org/scala-tools/archetypes/scala-archetype-simple/
 		 * has versions 1.0, 1.1 and 1.2 released at the same moment.
 		 */
-		return ImmutableSortedMap.copyOf(Maps.filterKeys(versionsByDate, i -> !i.equals(Fetcher.EARLY)));
+		return versionsByRealDate.get();
+	}
+
+	@Override
+	public boolean equals(Object o2) {
+		if (!(o2 instanceof ArtifactWithReleases)) {
+			return false;
+		}
+		final ArtifactWithReleases a2 = (ArtifactWithReleases) o2;
+		return artifact.equals(a2.artifact) && releases.equals(a2.releases);
+	}
+
+	@Override
+	public int hashCode() {
+		return hashCode;
 	}
 }
@@ -0,0 +1,85 @@
+package io.github.oliviercailloux.archetypes_browser;
+
+import java.io.InputStream;
+import java.util.function.BiConsumer;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.google.common.base.Strings;
+import com.google.common.base.Verify;
+
+/**
+ * Reads an archetype catalog (archetype-catalog.xml) as a stream: each entry is
+ * handed over as soon as it is parsed, and nothing but the current entry is
+ * kept in memory.
+ */
+public class CatalogReader {
+	private static final XMLInputFactory FACTORY = XmlReaders.newFactory();
+
+	/**
+	 * Reads the catalog from the given stream, and gives each of its entries
+	 * (which may repeat an artifact, with a different version) to the given
+	 * consumer, in the order of the catalog. An entry with no version is given
+	 * with an empty version.
+	 *
+	 * @return the number of entries read.
+	 */
+	public static int read(InputStream input, BiConsumer<Artifact, String> entryConsumer) throws XMLStreamException {
+		final XMLStreamReader reader;
+		/** XMLInputFactory is not guaranteed to be thread-safe. */
+		synchronized (FACTORY) {
+			reader = FACTORY.createXMLStreamReader(input);
+		}
+		try {
+			int count = 0;
+			String groupId = null;
+			String artifactId = null;
+			String version = null;
+			/** The depth of the current element, the root element being at depth one. */
+			int depth = 0;
+			while (reader.hasNext()) {
+				final int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					++depth;
+					final String name = reader.getLocalName();
+					/** Root is archetype-catalog, then archetypes, then archetype. */
+					if (depth == 3) {
+						Verify.verify(name.equals("archetype"), name);
+						groupId = null;
+						artifactId = null;
+						version = null;
+					} else if (depth == 4) {
+						switch (name) {
+						case "groupId":
+							groupId = reader.getElementText().trim();
+							--depth;
+							break;
+						case "artifactId":
+							artifactId = reader.getElementText().trim();
+							--depth;
+							break;
+						case "version":
+							version = reader.getElementText().trim();
+							--depth;
+							break;
+						default:
+							break;
+						}
+					}
+				} else if (event == XMLStreamConstants.END_ELEMENT) {
+					if (depth == 3) {
+						entryConsumer.accept(Artifact.given(groupId, artifactId), Strings.nullToEmpty(version));
+						++count;
+					}
+					--depth;
+				}
+			}
+			return count;
+		} finally {
+			reader.close();
+		}
+	}
+}
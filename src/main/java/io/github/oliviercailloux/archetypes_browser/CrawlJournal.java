@@ -0,0 +1,196 @@
+package io.github.oliviercailloux.archetypes_browser;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Verify.verify;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+import javax.json.JsonWriter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * A durable record of the progress of a crawl, so that a crawl that is
+ * interrupted can be resumed without crawling again the artifacts it had
+ * completed.
+ * <p>
+ * The journal is a file with one line per entry, each line being a JSON
+ * object: an artifact with its releases, possibly none, once it has been
+ * crawled; or an artifact with the reason why crawling it failed. Each entry
+ * is forced to the storage device before the next one is written. A line that
+ * is not terminated, as the last one may be if the process was killed while
+ * writing it, is discarded when opening the journal. A later entry about an
+ * artifact replaces the earlier ones.
+ * <p>
+ * Not thread-safe.
+ */
+public class CrawlJournal implements AutoCloseable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(CrawlJournal.class);
+
+	public static final Path DEFAULT_PATH = Path.of("Artifacts.journal");
+
+	/**
+	 * Opens the given journal, creating it if it does not exist, and reads the
+	 * entries it contains.
+	 */
+	public static CrawlJournal open(Path path) throws IOException {
+		final Map<Artifact, ImmutableSet<ArtifactRelease>> completed = new LinkedHashMap<>();
+		final Map<Artifact, String> failed = new LinkedHashMap<>();
+		final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			final String content = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+			final int end = content.lastIndexOf('\n') + 1;
+			if (end < content.length()) {
+				LOGGER.warn("Discarding an unterminated entry of {}.", path);
+				channel.truncate(content.substring(0, end).getBytes(StandardCharsets.UTF_8).length);
+			}
+			content.substring(0, end).lines().forEach(line -> {
+				final JsonObject json;
+				try (JsonReader reader = Json.createReader(new StringReader(line))) {
+					json = reader.readObject();
+				}
+				final Artifact artifact = Artifact.given(json.getString("groupId"), json.getString("artifactId"));
+				completed.remove(artifact);
+				failed.remove(artifact);
+				if (json.containsKey("failure")) {
+					failed.put(artifact, json.getString("failure"));
+				} else {
+					completed.put(artifact, readReleases(artifact, json));
+				}
+			});
+			channel.position(channel.size());
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+		return new CrawlJournal(path, channel, completed, failed);
+	}
+
+	private static ImmutableSet<ArtifactRelease> readReleases(Artifact artifact, JsonObject json) {
+		final ImmutableSet.Builder<ArtifactRelease> releases = ImmutableSet.builder();
+		for (JsonValue value : json.getJsonArray("releases")) {
+			final JsonObject release = value.asJsonObject();
+			releases.add(ArtifactRelease.given(artifact, release.getString("version"),
+					release.getString("description"), Instant.parse(release.getString("releaseDate"))));
+		}
+		return releases.build();
+	}
+
+	private final Path path;
+	private final FileChannel channel;
+	private final Map<Artifact, ImmutableSet<ArtifactRelease>> completed;
+	private final Map<Artifact, String> failed;
+
+	private CrawlJournal(Path path, FileChannel channel, Map<Artifact, ImmutableSet<ArtifactRelease>> completed,
+			Map<Artifact, String> failed) {
+		this.path = checkNotNull(path);
+		this.channel = checkNotNull(channel);
+		this.completed = checkNotNull(completed);
+		this.failed = checkNotNull(failed);
+	}
+
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * @return the releases of each artifact that has been crawled, possibly none,
+	 *         in the order they were recorded.
+	 */
+	public ImmutableMap<Artifact, ImmutableSet<ArtifactRelease>> getCompleted() {
+		return ImmutableMap.copyOf(completed);
+	}
+
+	/**
+	 * @return the reason why crawling each artifact failed, for the artifacts
+	 *         whose last entry is a failure.
+	 */
+	public ImmutableMap<Artifact, String> getFailed() {
+		return ImmutableMap.copyOf(failed);
+	}
+
+	/**
+	 * @param releases possibly empty.
+	 */
+	public void complete(Artifact artifact, Set<ArtifactRelease> releases) {
+		verify(releases.stream().allMatch(r -> r.getArtifact().equals(artifact)));
+		final JsonArrayBuilder releasesJson = Json.createArrayBuilder();
+		for (ArtifactRelease release : releases) {
+			releasesJson.add(Json.createObjectBuilder().add("version", release.getVersion())
+					.add("description", release.getDescription())
+					.add("releaseDate", release.getReleaseDate().toString()));
+		}
+		append(start(artifact).add("releases", releasesJson));
+		failed.remove(artifact);
+		completed.put(artifact, ImmutableSet.copyOf(releases));
+	}
+
+	public void fail(Artifact artifact, Throwable failure) {
+		final String reason = failure.toString();
+		append(start(artifact).add("failure", reason));
+		completed.remove(artifact);
+		failed.put(artifact, reason);
+	}
+
+	private static JsonObjectBuilder start(Artifact artifact) {
+		return Json.createObjectBuilder().add("groupId", artifact.getGroupId()).add("artifactId",
+				artifact.getArtifactId());
+	}
+
+	/**
+	 * Writes the given entry on a line of its own (JSON strings escape line
+	 * breaks), and forces it to the storage device.
+	 */
+	private void append(JsonObjectBuilder entry) {
+		final StringWriter line = new StringWriter();
+		try (JsonWriter writer = Json.createWriter(line)) {
+			writer.write(entry.build());
+		}
+		line.write('\n');
+		final ByteBuffer bytes = ByteBuffer.wrap(line.toString().getBytes(StandardCharsets.UTF_8));
+		try {
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+			channel.force(false);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this).add("path", path).add("completed", completed.size())
+				.add("failed", failed.size()).toString();
+	}
+}
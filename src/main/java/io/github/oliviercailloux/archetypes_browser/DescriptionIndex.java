@@ -0,0 +1,370 @@
+package io.github.oliviercailloux.archetypes_browser;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+import javax.json.JsonWriter;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.VerifyException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * An inverted index of artifacts, by the words of the descriptions of their
+ * releases and of their group and artifact ids. Words are the maximal
+ * sequences of letters and digits, compared ignoring case.
+ * <p>
+ * A query is a sequence of clauses separated by spaces, all of which must
+ * match. A clause is a word, or a prefix followed by {@code *}, or several of
+ * these separated by {@code OR}; a clause preceded by {@code -} must not
+ * match. A word of a query is split into words as the descriptions are, and
+ * matches when all of these match: “spring-boot” matches the artifacts with
+ * both “spring” and “boot”. Results are ranked by the sum, over the words that
+ * they match, of the frequency of the word in the artifact times its inverse
+ * document frequency.
+ * <p>
+ * The index is persisted as the words of each artifact with their frequencies,
+ * from which the postings are rebuilt on reading, without tokenizing again.
+ * <p>
+ * Not thread-safe.
+ */
+public class DescriptionIndex {
+	public static final Path DEFAULT_PATH = Path.of("Index.json");
+
+	private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+	public static DescriptionIndex empty() {
+		return new DescriptionIndex();
+	}
+
+	public static DescriptionIndex of(Set<ArtifactWithReleases> artifacts) {
+		final DescriptionIndex index = new DescriptionIndex();
+		artifacts.forEach(index::update);
+		return index;
+	}
+
+	/**
+	 * @return an empty index if the given file does not exist.
+	 */
+	public static DescriptionIndex read(Path path) throws IOException {
+		final DescriptionIndex index = new DescriptionIndex();
+		if (!Files.exists(path)) {
+			return index;
+		}
+		final JsonObject json;
+		try (BufferedReader reader = Files.newBufferedReader(path); JsonReader jsonReader = Json.createReader(reader)) {
+			json = jsonReader.readObject();
+		}
+		for (JsonValue value : json.getJsonArray("artifacts")) {
+			final JsonObject document = value.asJsonObject();
+			final Artifact artifact = Artifact.given(document.getString("groupId"), document.getString("artifactId"));
+			final ImmutableMap.Builder<String, Integer> terms = ImmutableMap.builder();
+			final JsonObject termsJson = document.getJsonObject("terms");
+			for (String term : termsJson.keySet()) {
+				terms.put(term, termsJson.getInt(term));
+			}
+			index.put(artifact, terms.build());
+		}
+		return index;
+	}
+
+	/**
+	 * Indexed by ordinal: the artifacts, in order of first indexing, with null
+	 * where an artifact has been removed.
+	 */
+	private final List<Artifact> artifacts;
+	/**
+	 * Indexed by ordinal: the term frequencies of each artifact.
+	 */
+	private final List<ImmutableMap<String, Integer>> documents;
+	private final Map<Artifact, Integer> ordinals;
+	private final NavigableMap<String, Posting> postings;
+
+	private DescriptionIndex() {
+		artifacts = new ArrayList<>();
+		documents = new ArrayList<>();
+		ordinals = new HashMap<>();
+		postings = new TreeMap<>();
+	}
+
+	/**
+	 * The artifacts that contain a term, with the frequency of the term in each,
+	 * in primitive arrays so that scoring does not box.
+	 */
+	private static class Posting {
+		private int[] ordinals = new int[4];
+		private int[] frequencies = new int[4];
+		private int size = 0;
+
+		private void add(int ordinal, int frequency) {
+			if (size == ordinals.length) {
+				ordinals = Arrays.copyOf(ordinals, 2 * size);
+				frequencies = Arrays.copyOf(frequencies, 2 * size);
+			}
+			ordinals[size] = ordinal;
+			frequencies[size] = frequency;
+			++size;
+		}
+
+		private void remove(int ordinal) {
+			for (int i = 0; i < size; ++i) {
+				if (ordinals[i] == ordinal) {
+					--size;
+					ordinals[i] = ordinals[size];
+					frequencies[i] = frequencies[size];
+					return;
+				}
+			}
+			throw new VerifyException();
+		}
+	}
+
+	/**
+	 * Indexes the given artifact, replacing what was indexed about it, if
+	 * anything.
+	 *
+	 * @return {@code true} iff the index changed.
+	 */
+	public boolean update(ArtifactWithReleases withReleases) {
+		final Artifact artifact = withReleases.getArtifact();
+		final Map<String, Integer> terms = new HashMap<>();
+		tokenize(artifact.getGroupId()).forEach(t -> terms.merge(t, 1, Integer::sum));
+		tokenize(artifact.getArtifactId()).forEach(t -> terms.merge(t, 1, Integer::sum));
+		withReleases.getReleases().stream().map(ArtifactRelease::getDescription).distinct()
+				.flatMap(DescriptionIndex::tokenize).forEach(t -> terms.merge(t, 1, Integer::sum));
+		final ImmutableMap<String, Integer> newTerms = ImmutableMap.copyOf(terms);
+		final Integer ordinal = ordinals.get(artifact);
+		if (ordinal != null && newTerms.equals(documents.get(ordinal))) {
+			return false;
+		}
+		remove(artifact);
+		put(artifact, newTerms);
+		return true;
+	}
+
+	/**
+	 * Removes the artifacts that are not in the given set.
+	 *
+	 * @return the number of artifacts removed.
+	 */
+	public int retainAll(Set<Artifact> kept) {
+		final ImmutableSet<Artifact> removed = ordinals.keySet().stream().filter(a -> !kept.contains(a))
+				.collect(ImmutableSet.toImmutableSet());
+		for (Artifact artifact : removed) {
+			remove(artifact);
+			artifacts.set(ordinals.remove(artifact), null);
+		}
+		return removed.size();
+	}
+
+	/**
+	 * Keeps the ordinal of the artifact, if any, so that it keeps its rank among
+	 * ties.
+	 */
+	private void remove(Artifact artifact) {
+		final Integer ordinal = ordinals.get(artifact);
+		if (ordinal == null) {
+			return;
+		}
+		for (String term : documents.get(ordinal).keySet()) {
+			final Posting posting = postings.get(term);
+			posting.remove(ordinal);
+			if (posting.size == 0) {
+				postings.remove(term);
+			}
+		}
+		documents.set(ordinal, ImmutableMap.of());
+	}
+
+	private void put(Artifact artifact, ImmutableMap<String, Integer> terms) {
+		final int ordinal = ordinals.computeIfAbsent(artifact, a -> {
+			artifacts.add(a);
+			documents.add(ImmutableMap.of());
+			return artifacts.size() - 1;
+		});
+		documents.set(ordinal, terms);
+		for (Entry<String, Integer> term : terms.entrySet()) {
+			postings.computeIfAbsent(term.getKey(), t -> new Posting()).add(ordinal, term.getValue());
+		}
+	}
+
+	private static Stream<String> tokenize(String text) {
+		return NON_WORD.splitAsStream(text.toLowerCase(Locale.ROOT)).filter(t -> !t.isEmpty());
+	}
+
+	public int size() {
+		return ordinals.size();
+	}
+
+	/**
+	 * @param limit the maximal number of results.
+	 * @return the artifacts matching the given query, best first, ties being
+	 *         broken in the order of indexing.
+	 */
+	public ImmutableList<Artifact> search(String query, int limit) {
+		checkArgument(limit >= 0);
+		/** Each clause is a list of alternatives, each of which is a list of terms. */
+		final List<List<ImmutableList<String>>> required = new ArrayList<>();
+		final List<ImmutableList<String>> excluded = new ArrayList<>();
+		boolean or = false;
+		for (String token : query.trim().split("\\s+")) {
+			if (token.equals("OR")) {
+				or = !required.isEmpty();
+				continue;
+			}
+			final boolean exclude = token.startsWith("-");
+			final ImmutableList<String> terms = toTerms(exclude ? token.substring(1) : token);
+			if (terms.isEmpty()) {
+				continue;
+			}
+			if (exclude) {
+				excluded.add(terms);
+			} else if (or) {
+				required.get(required.size() - 1).add(terms);
+			} else {
+				final List<ImmutableList<String>> clause = new ArrayList<>();
+				clause.add(terms);
+				required.add(clause);
+			}
+			or = false;
+		}
+		if (required.isEmpty()) {
+			return ImmutableList.of();
+		}
+
+		final BitSet matched = getMatches(required.get(0));
+		for (List<ImmutableList<String>> clause : required.subList(1, required.size())) {
+			matched.and(getMatches(clause));
+		}
+		matched.andNot(getMatches(excluded));
+
+		final double[] scores = new double[artifacts.size()];
+		for (List<ImmutableList<String>> clause : required) {
+			for (ImmutableList<String> alternative : clause) {
+				for (String term : alternative) {
+					for (Posting posting : getPostings(term)) {
+						final double idf = Math.log(1d + (double) ordinals.size() / posting.size);
+						for (int i = 0; i < posting.size; ++i) {
+							if (matched.get(posting.ordinals[i])) {
+								scores[posting.ordinals[i]] += posting.frequencies[i] * idf;
+							}
+						}
+					}
+				}
+			}
+		}
+
+		final List<Integer> results = matched.stream().boxed().collect(Collectors.toList());
+		results.sort(Comparator.comparingDouble((Integer o) -> scores[o]).reversed()
+				.thenComparing(Comparator.naturalOrder()));
+		return results.stream().limit(limit).map(artifacts::get).collect(ImmutableList.toImmutableList());
+	}
+
+	/**
+	 * Tokenizes a word of a query as the descriptions are, so that, for example,
+	 * “spring-boot” gives the terms “spring” and “boot”. A trailing {@code *}
+	 * applies to the last term.
+	 *
+	 * @param word without its leading {@code -}, if any.
+	 * @return the terms, all of which must match for the word to match; empty if
+	 *         the word has none.
+	 */
+	private static ImmutableList<String> toTerms(String word) {
+		final boolean prefix = word.endsWith("*");
+		final List<String> terms = tokenize(prefix ? word.substring(0, word.length() - 1) : word)
+				.collect(Collectors.toList());
+		if (prefix && !terms.isEmpty()) {
+			terms.set(terms.size() - 1, terms.get(terms.size() - 1) + "*");
+		}
+		return ImmutableList.copyOf(terms);
+	}
+
+	/**
+	 * @return the ordinals of the artifacts that match all the terms of at least
+	 *         one of the given alternatives.
+	 */
+	private BitSet getMatches(List<ImmutableList<String>> alternatives) {
+		final BitSet matches = new BitSet();
+		for (ImmutableList<String> alternative : alternatives) {
+			BitSet alternativeMatches = null;
+			for (String term : alternative) {
+				final BitSet termMatches = new BitSet();
+				for (Posting posting : getPostings(term)) {
+					for (int i = 0; i < posting.size; ++i) {
+						termMatches.set(posting.ordinals[i]);
+					}
+				}
+				if (alternativeMatches == null) {
+					alternativeMatches = termMatches;
+				} else {
+					alternativeMatches.and(termMatches);
+				}
+			}
+			matches.or(alternativeMatches);
+		}
+		return matches;
+	}
+
+	/**
+	 * @return the postings of the given term or, if it ends with {@code *}, of all
+	 *         the terms with the given prefix.
+	 */
+	private Collection<Posting> getPostings(String term) {
+		if (term.endsWith("*")) {
+			final String prefix = term.substring(0, term.length() - 1);
+			return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+		}
+		return postings.containsKey(term) ? ImmutableList.of(postings.get(term)) : ImmutableList.of();
+	}
+
+	public void write(Path path) throws IOException {
+		final JsonArrayBuilder artifacts = Json.createArrayBuilder();
+		for (Artifact artifact : this.artifacts) {
+			if (artifact == null) {
+				continue;
+			}
+			final JsonObjectBuilder terms = Json.createObjectBuilder();
+			documents.get(ordinals.get(artifact)).forEach((term, frequency) -> terms.add(term, frequency.intValue()));
+			artifacts.add(Json.createObjectBuilder().add("groupId", artifact.getGroupId())
+					.add("artifactId", artifact.getArtifactId()).add("terms", terms));
+		}
+		try (BufferedWriter writer = Files.newBufferedWriter(path); JsonWriter jsonWriter = Json.createWriter(writer)) {
+			jsonWriter.write(Json.createObjectBuilder().add("artifacts", artifacts).build());
+		}
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this).add("artifacts", ordinals.size()).add("terms", postings.size())
+				.toString();
+	}
+}
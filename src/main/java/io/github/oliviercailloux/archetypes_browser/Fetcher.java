@@ -1,55 +1,54 @@
 package io.github.oliviercailloux.archetypes_browser;
 
-import static com.google.common.base.Verify.verify;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringReader;
 import java.io.UncheckedIOException;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeFormatterBuilder;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
-import javax.ws.rs.client.WebTarget;
-import javax.ws.rs.core.MediaType;
-import javax.ws.rs.core.Response;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-
-import org.apache.maven.archetype.catalog.Archetype;
-import org.apache.maven.archetype.catalog.ArchetypeCatalog;
-import org.apache.maven.archetype.catalog.io.xpp3.ArchetypeCatalogXpp3Reader;
-import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
-import org.jsoup.Jsoup;
-import org.jsoup.helper.W3CDom;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import javax.xml.stream.XMLStreamException;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
-
-import com.google.common.base.Verify;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Iterables;
+import com.google.common.collect.MoreCollectors;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import io.github.oliviercailloux.archetypes_browser.formats.JsonArtifacts;
-import io.github.oliviercailloux.http.Downloader;
+import io.github.oliviercailloux.http.HttpCache;
+import io.github.oliviercailloux.http.PooledClient;
+import io.github.oliviercailloux.http.RequestScheduler;
+import io.github.oliviercailloux.http.ValidatorStore;
+import io.github.oliviercailloux.metrics.Metrics;
+import io.github.oliviercailloux.metrics.Progress;
 
-public class Fetcher {
+public class Fetcher implements AutoCloseable {
 	@SuppressWarnings("unused")
 	private static final Logger LOGGER = LoggerFactory.getLogger(Fetcher.class);
 
@@ -57,228 +56,497 @@ public class Fetcher {
 
 	public static final Path OUTPUT_PATH = Path.of("Artifacts.json");
 
-	public static void main(String[] args) throws Exception {
-		final Fetcher browser = new Fetcher();
-		browser.refresh();
-		LOGGER.info("Refreshed.");
+	public static final Path VALIDATORS_PATH = Path.of("Validators.json");
 
-		final ImmutableSet<ArtifactWithReleases> allWithReleases = browser
-				.getAllReleases(Path.of("archetype-catalog.xml"));
-		Files.writeString(Fetcher.OUTPUT_PATH, JsonArtifacts.withReleasesToJson(allWithReleases).toString());
-	}
+	public static final URI CENTRAL = URI.create("https://repo.maven.apache.org/maven2/");
 
-	public ImmutableSet<ArtifactWithReleases> getAllReleases(Path catalogPath) {
-		final List<Archetype> archetypes;
-		try (InputStream is = Files.newInputStream(catalogPath)) {
-			final ArchetypeCatalog cat = new ArchetypeCatalogXpp3Reader().read(is);
-			archetypes = cat.getArchetypes();
-		} catch (IOException e) {
-			throw new UncheckedIOException(e);
-		} catch (XmlPullParserException e) {
-			throw new IllegalStateException(e);
-		}
-		final int totalCount = archetypes.size();
-		LOGGER.info("Found: {}.", totalCount);
+	private static final Duration PROGRESS_PERIOD = Duration.ofSeconds(30);
 
-		final ImmutableSet<Artifact> artifacts = archetypes.stream()
-				.map(a -> Artifact.given(a.getGroupId(), a.getArtifactId())).collect(ImmutableSet.toImmutableSet());
-		LOGGER.info("Read: {}.", artifacts.size());
+	/**
+	 * @param args optionally, the root directory of a mirror of the repository on
+	 *             disk, to crawl instead of Maven Central.
+	 */
+	public static void main(String[] args) throws Exception {
+		final ValidatorStore validators = ValidatorStore.read(VALIDATORS_PATH);
+		final Set<ArtifactWithReleases> previous;
+		if (Files.exists(OUTPUT_PATH)) {
+			try (InputStream input = new BufferedInputStream(Files.newInputStream(OUTPUT_PATH))) {
+				previous = JsonArtifacts.withReleasesFromJson(input);
+			}
+		} else {
+			previous = ImmutableSet.of();
+		}
+		final HttpCache cache = HttpCache.at(HttpCache.DEFAULT_DIRECTORY, 1L << 30, Duration.ofDays(90));
+		try (Fetcher browser = args.length == 0 ? Fetcher.caching(CENTRAL, 16, 8, validators, cache)
+				: Fetcher.using(FileRepository.at(Path.of(args[0])), 8)) {
+			browser.refresh();
+			LOGGER.info("Refreshed.");
 
-		final ImmutableSet.Builder<ArtifactWithReleases> withReleasesBuilder = ImmutableSet.builder();
-		final ImmutableSet.Builder<Artifact> noReleasesBuilder = ImmutableSet.builder();
-		for (Artifact artifact : artifacts) {
-			final ImmutableSet<ArtifactRelease> releases;
-			releases = getReleases(artifact);
-			LOGGER.info("Releases: {}.", releases);
-			if (releases.isEmpty()) {
-				/**
-				 * Some have no release; seems like the catalog has some ghost entries.
-				 *
-				 * https://repo.maven.apache.org/maven2/com/github/lucarosellini/ lists six
-				 * artifacts (not counting alexa and rJava/) but
-				 * https://search.maven.org/search?q=g:com.github.lucarosellini lists seven
-				 * entries.
-				 *
-				 * https://repo.maven.apache.org/maven2/com/github/fastcube/factory/tibco/bw/maven/
-				 * does not exist, whereas the
-				 * https://search.maven.org/search?q=com.github.fastcube.factory.tibco.bw.maven
-				 * lists several entries, among which five are in the catalog.
-				 */
-				LOGGER.info("No release: {}.", artifact);
-				noReleasesBuilder.add(artifact);
-			} else {
-				final ArtifactWithReleases withReleases = ArtifactWithReleases.given(releases);
-				withReleasesBuilder.add(withReleases);
+			final DescriptionIndex index = DescriptionIndex.read(DescriptionIndex.DEFAULT_PATH);
+			final Set<Artifact> indexed = new HashSet<>();
+			/** Written aside, so that the previous output survives a failed crawl. */
+			final Path partialPath = OUTPUT_PATH.resolveSibling(OUTPUT_PATH.getFileName() + ".part");
+			/**
+			 * Kept until the crawl completes, so that a crawl that is interrupted resumes
+			 * where it stopped.
+			 */
+			try (CrawlJournal journal = CrawlJournal.open(CrawlJournal.DEFAULT_PATH);
+					JsonArtifacts.ReleasesWriter writer = JsonArtifacts
+							.writer(new BufferedOutputStream(Files.newOutputStream(partialPath)))) {
+				LOGGER.info("Resuming: {}.", journal);
+				browser.getAllReleases(Path.of("archetype-catalog.xml"), previous, Descriptions.LATEST, journal, a -> {
+					browser.getMetrics().time("serialization", () -> writer.write(a));
+					index.update(a);
+					indexed.add(a.getArtifact());
+				});
 			}
+			Files.move(partialPath, OUTPUT_PATH, StandardCopyOption.REPLACE_EXISTING);
+			Files.delete(CrawlJournal.DEFAULT_PATH);
+			validators.write(VALIDATORS_PATH);
+			index.retainAll(indexed);
+			index.write(DescriptionIndex.DEFAULT_PATH);
+			LOGGER.info("Index: {}.", index);
+			LOGGER.info("Requests: {}.", browser.getStatistics());
 		}
-		final ImmutableSet<Artifact> noReleases = noReleasesBuilder.build();
-		LOGGER.info("Have no releases: {}.", noReleases);
+		LOGGER.info("Cache: {}.", cache);
+		cache.evict();
+	}
 
-		final ImmutableSet<ArtifactWithReleases> allWithReleases = withReleasesBuilder.build();
-		return allWithReleases;
+	public static Fetcher sequential(URI repository) {
+		return sequential(repository, ValidatorStore.empty());
 	}
 
-	private void refresh() throws IOException {
-		final Downloader downloader = Downloader.saving();
-		final Client client = ClientBuilder.newClient();
-		final WebTarget target = client.target("https://repo.maven.apache.org/maven2/archetype-catalog.xml");
-		downloader.readAndDownload(target);
+	/**
+	 * @param validators the validators of the resources fetched in a previous
+	 *                   crawl, which this fetcher uses to make conditional
+	 *                   requests, and updates.
+	 */
+	public static Fetcher sequential(URI repository, ValidatorStore validators) {
+		return new Fetcher(HttpRepository.given(repository, RequestScheduler.polite(1),
+				PooledClient.compressed(1, 1, PooledClient.DEFAULT_CONNECT_TIMEOUT, PooledClient.DEFAULT_READ_TIMEOUT),
+				validators, Optional.empty()), 1);
 	}
 
-	private ImmutableSet<ArtifactRelease> getReleases(Artifact artifact) {
-		final Client client = ClientBuilder.newClient();
-		final WebTarget target = client.target("https://repo.maven.apache.org/maven2/")
-				.path(artifact.getGroupIdSlashSeparated()).path("/").path(artifact.getArtifactId()).path("/");
-		LOGGER.debug("Querying {}.", target.toString());
-		Document doc;
-		try (Response response = target.request(MediaType.TEXT_PLAIN).get()) {
-			if (response.getStatus() == Response.Status.NOT_FOUND.getStatusCode()) {
-				return ImmutableSet.of();
-			}
-			final String responseStr = response.readEntity(String.class);
-			LOGGER.debug("Response {}.", responseStr);
+	public static Fetcher concurrent(URI repository, int threads, int maxPerHost) {
+		return concurrent(repository, threads, maxPerHost, ValidatorStore.empty());
+	}
 
-			org.jsoup.nodes.Document jsoupDoc = Jsoup.parse(responseStr);
-			doc = new W3CDom().fromJsoup(jsoupDoc);
-		}
+	/**
+	 * @param threads    the number of requests that may be in flight at any given
+	 *                   time, in total.
+	 * @param maxPerHost the number of requests that may be in flight at any given
+	 *                   time towards a single host.
+	 * @param validators the validators of the resources fetched in a previous
+	 *                   crawl, which this fetcher uses to make conditional
+	 *                   requests, and updates.
+	 */
+	public static Fetcher concurrent(URI repository, int threads, int maxPerHost, ValidatorStore validators) {
+		return new Fetcher(HttpRepository.given(repository, RequestScheduler.polite(maxPerHost),
+				PooledClient.compressed(threads, maxPerHost, PooledClient.DEFAULT_CONNECT_TIMEOUT,
+						PooledClient.DEFAULT_READ_TIMEOUT),
+				validators, Optional.empty()), threads);
+	}
 
-		Element docE = doc.getDocumentElement();
-		Verify.verify(docE.getTagName().equals("html"));
-		final NodeList aNodes = docE.getElementsByTagName("a");
-		final Node a0 = aNodes.item(0);
-		Verify.verify(a0.getChildNodes().item(0).getTextContent().equals("../"));
-		final ImmutableSet.Builder<Node> aVersionNodesBuilder = ImmutableSet.builder();
-		int mavenNodes = 0;
-		for (int i = 1; i < aNodes.getLength(); ++i) {
-			final Node aNode = aNodes.item(i);
-			final String href = aNode.getAttributes().getNamedItem("href").getNodeValue();
-			/**
-			 * Usually, there’s a node maven-metadata.xml, then maven-metadata.xml.md5, then
-			 * maven-metadata.xml.sha1, but occasionally there’s up to nine such nodes
-			 * (example: org.mule.tools:mule-transport-archetype), and in oldMode, there’s
-			 * zero.
-			 */
-			if (href.startsWith("maven-metadata")) {
-				++mavenNodes;
-			} else {
-				Verify.verify(mavenNodes == 0);
-				aVersionNodesBuilder.add(aNode);
-			}
-		}
+	/**
+	 * Returns a fetcher that keeps every listing and POM it transfers in the
+	 * given cache, and revalidates the cached entries instead of transferring
+	 * them again.
+	 *
+	 * @param threads    the number of requests that may be in flight at any given
+	 *                   time, in total; 1 for a sequential fetcher.
+	 * @param maxPerHost the number of requests that may be in flight at any given
+	 *                   time towards a single host.
+	 */
+	public static Fetcher caching(URI repository, int threads, int maxPerHost, ValidatorStore validators,
+			HttpCache cache) {
+		return new Fetcher(HttpRepository.given(repository, RequestScheduler.polite(maxPerHost),
+				PooledClient.compressed(threads, maxPerHost, PooledClient.DEFAULT_CONNECT_TIMEOUT,
+						PooledClient.DEFAULT_READ_TIMEOUT),
+				validators, Optional.of(cache)), threads);
+	}
+
+	/**
+	 * Returns a fetcher that requests only the head of each POM first, and the
+	 * rest only if needed: see
+	 * {@link HttpRepository#ranged(URI, RequestScheduler, PooledClient, ValidatorStore, int)}.
+	 * Unlike the other fetchers, it does not ask for compressed responses, as the
+	 * head would then be one of the compressed POM.
+	 *
+	 * @param headLength the number of bytes to request first.
+	 */
+	public static Fetcher ranged(URI repository, int threads, int maxPerHost, ValidatorStore validators,
+			int headLength) {
+		return new Fetcher(HttpRepository.ranged(repository, RequestScheduler.polite(maxPerHost),
+				PooledClient.given(threads, maxPerHost, PooledClient.DEFAULT_CONNECT_TIMEOUT,
+						PooledClient.DEFAULT_READ_TIMEOUT),
+				validators, headLength), threads);
+	}
+
+	/**
+	 * Returns a fetcher that sends its requests over HTTP/2 when the repository
+	 * accepts it, multiplexed over a single connection: see
+	 * {@link PooledClient#multiplexed(java.time.Duration, java.time.Duration)}.
+	 *
+	 * @param threads    the number of requests that may be in flight at any given
+	 *                   time, in total.
+	 * @param maxPerHost the number of requests that may be in flight at any given
+	 *                   time towards a single host.
+	 */
+	public static Fetcher multiplexed(URI repository, int threads, int maxPerHost, ValidatorStore validators) {
+		return new Fetcher(HttpRepository.given(repository, RequestScheduler.polite(maxPerHost),
+				PooledClient.multiplexed(PooledClient.DEFAULT_CONNECT_TIMEOUT, PooledClient.DEFAULT_READ_TIMEOUT),
+				validators, Optional.empty()), threads);
+	}
+
+	/**
+	 * Returns a fetcher that sends its requests through the given scheduler.
+	 *
+	 * @param threads the number of requests that may be in flight at any given
+	 *                time, in total; 1 for a sequential fetcher.
+	 */
+	public static Fetcher scheduled(URI repository, int threads, RequestScheduler scheduler,
+			ValidatorStore validators) {
+		return new Fetcher(HttpRepository.given(repository, scheduler,
+				PooledClient.compressed(threads, scheduler.getMaxPerHost(),
+						PooledClient.DEFAULT_CONNECT_TIMEOUT, PooledClient.DEFAULT_READ_TIMEOUT),
+				validators, Optional.empty()), threads);
+	}
+
+	/**
+	 * Returns a fetcher that reads from the given source, which it closes when
+	 * closed; for example, a {@link FileRepository} to crawl a mirror on disk
+	 * without network.
+	 *
+	 * @param threads the number of artifacts and POMs that may be read at any
+	 *                given time; 1 for a sequential fetcher.
+	 */
+	public static Fetcher using(RepositorySource source, int threads) {
+		return new Fetcher(source, threads);
+	}
+
+	private final RepositorySource source;
+	private final int threads;
+	private final Metrics metrics;
+
+	private Fetcher(RepositorySource source, int threads) {
+		this.source = checkNotNull(source);
+		checkArgument(threads >= 1);
+		this.threads = threads;
+		metrics = source.getMetrics();
+	}
+
+	/**
+	 * How the descriptions of the releases of an artifact are obtained.
+	 */
+	public static enum Descriptions {
 		/**
-		 * Example of oldMode: com.taobao.itest; dk.jacobve.maven.archetypes;
-		 * org.appfuse.
-		 *
-		 * Example with some unknown dates:
-		 * https://repo.maven.apache.org/maven2/com/vaadin/vaadin-archetype-application/.
+		 * Every release is given the description of the newest release that has a
+		 * non-empty one: the POMs are fetched from the newest release backwards, and
+		 * only until such a description is found.
 		 */
-		final boolean oldMode = mavenNodes == 0;
-		Verify.verify(oldMode || (mavenNodes >= 3 && mavenNodes <= 9));
-		final ImmutableSet<Node> aVersionNodes = aVersionNodesBuilder.build();
-		final Pattern datePattern = Pattern.compile(" *([0-9-]+ [0-9][0-9]:[0-9][0-9]) *- *\n");
-		final Pattern unknownDatePattern = Pattern.compile(" *- *- *\n[ \\t]*");
-		final ImmutableSet.Builder<ArtifactRelease> releasesBuilder = ImmutableSet.builder();
-		for (Node aVersion : aVersionNodes) {
-			final NamedNodeMap attributes = aVersion.getAttributes();
-			final String href = attributes.getNamedItem("href").getNodeValue();
-			final Node titleItem = attributes.getNamedItem("title");
-			if (titleItem == null) {
-				Verify.verify(oldMode);
-			} else {
-				final String title = titleItem.getNodeValue();
-				Verify.verify(href.equals(title), href);
-			}
-			final NodeList childNodes = aVersion.getChildNodes();
-			Verify.verify(childNodes.getLength() == 1);
-			final Node inner = childNodes.item(0);
-			Verify.verify(inner.getNodeValue().equals(href));
-			Verify.verify(href.endsWith("/"));
-			final String version = href.substring(0, href.length() - 1);
-			LOGGER.debug("Version: {}.", version);
-			final String dateSpaced = aVersion.getNextSibling().getTextContent();
-			final Matcher dateMatcher = datePattern.matcher(dateSpaced);
-			final Matcher unknownDateMatcher = unknownDatePattern.matcher(dateSpaced);
-			final boolean dateMatched = dateMatcher.matches();
-			final boolean unknownDateMatched = unknownDateMatcher.matches();
-			Verify.verify(dateMatched || unknownDateMatched, "" + artifact + ", " + dateSpaced);
-			final Instant instant;
-			if (unknownDateMatched) {
-				instant = EARLY;
-			} else {
-				final String dateText = dateMatcher.group(1);
-				final DateTimeFormatter formatter = new DateTimeFormatterBuilder().append(DateTimeFormatter.ISO_DATE)
-						.appendLiteral(' ').append(DateTimeFormatter.ISO_LOCAL_TIME).toFormatter();
-				final LocalDateTime date = formatter.parse(dateText, LocalDateTime::from);
-				LOGGER.debug("Date: {}.", date);
-				instant = date.toInstant(ZoneOffset.UTC);
-				if (oldMode) {
-					Verify.verify(instant.isBefore(Instant.parse("2012-01-01T00:00:00Z")));
-				}
-			}
+		LATEST,
+		/**
+		 * Every release is given its own description, which requires fetching the POM
+		 * of every release.
+		 */
+		ALL
+	}
 
-			final String description = getDescription(client, artifact, version);
+	public ImmutableSet<ArtifactWithReleases> getAllReleases(Path catalogPath) {
+		return getAllReleases(catalogPath, ImmutableSet.of());
+	}
 
-			final ArtifactRelease release = ArtifactRelease.given(artifact, version, description, instant);
-			releasesBuilder.add(release);
-		}
-		return releasesBuilder.build();
+	public ImmutableSet<ArtifactWithReleases> getAllReleases(Path catalogPath, Set<ArtifactWithReleases> previous) {
+		return getAllReleases(catalogPath, previous, Descriptions.LATEST);
 	}
 
-	private String getDescription(Client client, Artifact artifact, String version) {
-		final WebTarget pomTarget = client.target("https://repo.maven.apache.org/maven2/")
-				.path(artifact.getGroupIdSlashSeparated()).path("/").path(artifact.getArtifactId()).path("/")
-				.path(version).path(artifact.getArtifactId() + "-" + version + ".pom");
-		LOGGER.debug("Getting {}.", pomTarget);
-		final String pomStr;
-		try (Response response = pomTarget.request(MediaType.TEXT_PLAIN).get()) {
-			final boolean notFound = response.getStatus() == Response.Status.NOT_FOUND.getStatusCode();
-			/**
-			 * noDate does not imply notFound:
-			 * https://repo.maven.apache.org/maven2/com/agilejava/docbkx/docbkx-quickstart-archetype/2.0.10/docbkx-quickstart-archetype-2.0.10.pom
-			 * exists though no date.
-			 *
-			 * notFound does not imply noDate:
-			 * https://repo.maven.apache.org/maven2/com/github/adminfaces/admin-starter-archetype/1.0.0-RC20/admin-starter-archetype-1.0.0-RC20.pom
-			 * does not exist though this release has a date.
-			 */
-			if (notFound) {
-				return "";
-			}
-			pomStr = response.readEntity(String.class);
-		}
+	/**
+	 * Crawls the artifacts of the given catalog, re-using what is known from a
+	 * previous crawl. An artifact whose versions listed in the catalog are all
+	 * known from the previous crawl is not crawled again. For the other
+	 * artifacts known from the previous crawl, the listings and POMs are
+	 * requested conditionally, and the previous data is re-used for those that
+	 * have not been modified.
+	 * <p>
+	 * The catalog is read as a stream, and an artifact is crawled as soon as its
+	 * first entry that requires it is read.
+	 *
+	 * @param previous     the result of a previous crawl, possibly empty.
+	 * @param descriptions how to obtain the descriptions of the releases of the
+	 *                     artifacts that are crawled.
+	 */
+	public ImmutableSet<ArtifactWithReleases> getAllReleases(Path catalogPath, Set<ArtifactWithReleases> previous,
+			Descriptions descriptions) {
+		final ImmutableSet.Builder<ArtifactWithReleases> allWithReleases = ImmutableSet.builder();
+		getAllReleases(catalogPath, previous, descriptions, allWithReleases::add);
+		return allWithReleases.build();
+	}
 
-		final String description;
+	/**
+	 * Crawls as {@link #getAllReleases(Path, Set, Descriptions)} does, but gives
+	 * each artifact that has releases to the given consumer, in the order of the
+	 * catalog, as soon as it and all the artifacts before it are crawled, instead
+	 * of gathering them.
+	 */
+	public void getAllReleases(Path catalogPath, Set<ArtifactWithReleases> previous, Descriptions descriptions,
+			Consumer<ArtifactWithReleases> consumer) {
+		getAllReleases(catalogPath, previous, descriptions, Optional.empty(), consumer);
+	}
+
+	/**
+	 * Crawls as {@link #getAllReleases(Path, Set, Descriptions, Consumer)} does,
+	 * but records the outcome of crawling each artifact in the given journal
+	 * before going on with it, and does not crawl again the artifacts that the
+	 * journal records as completed, using the releases it records instead.
+	 */
+	public void getAllReleases(Path catalogPath, Set<ArtifactWithReleases> previous, Descriptions descriptions,
+			CrawlJournal journal, Consumer<ArtifactWithReleases> consumer) {
+		getAllReleases(catalogPath, previous, descriptions, Optional.of(journal), consumer);
+	}
+
+	/**
+	 * An artifact whose crawl fails (for example, because its listing is not as
+	 * expected) is logged, forgotten by the source (see
+	 * {@link RepositorySource#forget(Artifact)}) and, if a journal is given,
+	 * recorded as failed; it is then given to the consumer as known from the
+	 * previous crawl, if it is known, and otherwise skipped. The other artifacts
+	 * are unaffected.
+	 */
+	private void getAllReleases(Path catalogPath, Set<ArtifactWithReleases> previous, Descriptions descriptions,
+			Optional<CrawlJournal> journal, Consumer<ArtifactWithReleases> consumer) {
+		checkNotNull(descriptions);
+		final ImmutableMap<Artifact, ImmutableSet<ArtifactRelease>> journaled = journal
+				.map(CrawlJournal::getCompleted).orElse(ImmutableMap.of());
+		final ImmutableMap<Artifact, ArtifactWithReleases> previousByArtifact = previous.stream()
+				.collect(ImmutableMap.toImmutableMap(ArtifactWithReleases::getArtifact, a -> a));
+
+		/**
+		 * With a single thread, the tasks run on the reading thread, one after the
+		 * other, in the order of the catalog.
+		 */
+		final ExecutorService executor = threads == 1 ? MoreExecutors.newDirectExecutorService()
+				: Executors.newFixedThreadPool(threads);
+		/** All the artifacts of the catalog, in order of first appearance. */
+		final Set<Artifact> artifacts = new LinkedHashSet<>();
+		final Map<Artifact, CompletableFuture<ImmutableSet<ArtifactRelease>>> crawled = new LinkedHashMap<>();
+		final ImmutableSet.Builder<Artifact> noReleasesBuilder = ImmutableSet.builder();
+		final ImmutableSet.Builder<Artifact> failedBuilder = ImmutableSet.builder();
+		final Progress progress = Progress.reporting("artifacts", PROGRESS_PERIOD, metrics);
 		try {
-			final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-			DocumentBuilder builder;
-			builder = factory.newDocumentBuilder();
-			final Document document = builder.parse(new InputSource(new StringReader(pomStr)));
-			final Node rootElement = document.getDocumentElement();
-			final NodeList rootChildren = rootElement.getChildNodes();
-			final ImmutableSet.Builder<Node> descriptionChildren = ImmutableSet.builder();
-			for (int i = 0; i < rootChildren.getLength(); ++i) {
-				final Node child = rootChildren.item(i);
-				if (child.getNodeName().equalsIgnoreCase("description")) {
-					descriptionChildren.add(child);
-				}
+			final int totalCount;
+			final long readStart = System.nanoTime();
+			/** Spent starting crawls, which, with a single thread, includes crawling. */
+			final AtomicLong startingNanos = new AtomicLong();
+			try (InputStream is = Files.newInputStream(catalogPath)) {
+				totalCount = CatalogReader.read(is, (artifact, version) -> {
+					artifacts.add(artifact);
+					if (crawled.containsKey(artifact) || journaled.containsKey(artifact)) {
+						return;
+					}
+					final Optional<ArtifactWithReleases> previousReleases = Optional
+							.ofNullable(previousByArtifact.get(artifact));
+					if (findRelease(previousReleases, version).isEmpty()) {
+						final long start = System.nanoTime();
+						final CompletableFuture<ImmutableSet<ArtifactRelease>> future = getReleasesAsync(artifact,
+								previousReleases, descriptions, executor);
+						future.whenComplete((r, e) -> progress.advance());
+						crawled.put(artifact, future);
+						startingNanos.addAndGet(System.nanoTime() - start);
+					}
+				});
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			} catch (XMLStreamException e) {
+				throw new IllegalStateException(e);
 			}
-			final ImmutableSet<Node> descriptions = descriptionChildren.build();
-			if (descriptions.isEmpty()) {
-				return "";
+			metrics.record("catalog read", System.nanoTime() - readStart - startingNanos.get(), 0);
+			progress.setTotal(crawled.size());
+			LOGGER.info("Found: {}.", totalCount);
+			LOGGER.info("Read: {}.", artifacts.size());
+			LOGGER.info("Journaled: {}, crawled: {}, unchanged since previous crawl: {}.", journaled.size(),
+					crawled.size(), artifacts.size() - journaled.size() - crawled.size());
+
+			for (Artifact artifact : artifacts) {
+				/** Removed, so that what has been handed over can be garbage collected. */
+				final CompletableFuture<ImmutableSet<ArtifactRelease>> future = crawled.remove(artifact);
+				final ImmutableSet<ArtifactRelease> releases;
+				if (future == null) {
+					releases = journaled.containsKey(artifact) ? journaled.get(artifact)
+							: previousByArtifact.get(artifact).getReleases();
+				} else {
+					final ImmutableSet<ArtifactRelease> crawledReleases;
+					try {
+						crawledReleases = future.join();
+					} catch (CompletionException e) {
+						LOGGER.warn("Failed crawling {}.", artifact, e.getCause());
+						/**
+						 * Otherwise, the validators of what was fetched before the failure would
+						 * designate the previous releases, which are given instead, as up to date.
+						 */
+						source.forget(artifact);
+						journal.ifPresent(j -> j.fail(artifact, e.getCause()));
+						failedBuilder.add(artifact);
+						if (previousByArtifact.containsKey(artifact)) {
+							consumer.accept(previousByArtifact.get(artifact));
+						}
+						continue;
+					}
+					journal.ifPresent(j -> j.complete(artifact, crawledReleases));
+					releases = crawledReleases;
+				}
+				LOGGER.debug("Releases of {}: {}.", artifact, releases.size());
+				if (releases.isEmpty()) {
+					/**
+					 * Some have no release; seems like the catalog has some ghost entries.
+					 *
+					 * https://repo.maven.apache.org/maven2/com/github/lucarosellini/ lists six
+					 * artifacts (not counting alexa and rJava/) but
+					 * https://search.maven.org/search?q=g:com.github.lucarosellini lists seven
+					 * entries.
+					 *
+					 * https://repo.maven.apache.org/maven2/com/github/fastcube/factory/tibco/bw/maven/
+					 * does not exist, whereas the
+					 * https://search.maven.org/search?q=com.github.fastcube.factory.tibco.bw.maven
+					 * lists several entries, among which five are in the catalog.
+					 */
+					LOGGER.info("No release: {}.", artifact);
+					noReleasesBuilder.add(artifact);
+				} else {
+					final ArtifactWithReleases withReleases = ArtifactWithReleases.given(releases);
+					consumer.accept(withReleases);
+				}
 			}
-			verify(descriptions.size() == 1);
-			final Node descriptionNode = Iterables.getOnlyElement(descriptions);
-			final NodeList descriptionNodeChildren = descriptionNode.getChildNodes();
-			verify(descriptionNodeChildren.getLength() == 1);
-			final Node descriptionContent = descriptionNodeChildren.item(0);
-			verify(descriptionContent.getChildNodes().getLength() == 0);
-			verify(descriptionContent.getNodeType() == Node.TEXT_NODE);
-			description = descriptionContent.getNodeValue();
-		} catch (ParserConfigurationException | SAXException e) {
-			throw new IllegalStateException(e);
-		} catch (IOException e) {
-			throw new UncheckedIOException(e);
+		} finally {
+			executor.shutdownNow();
+			progress.close();
 		}
-		return description;
+		LOGGER.info("Crawled: {}; {}.", progress, metrics);
+		final ImmutableSet<Artifact> noReleases = noReleasesBuilder.build();
+		LOGGER.info("Have no releases: {}.", noReleases);
+		final ImmutableSet<Artifact> failed = failedBuilder.build();
+		if (!failed.isEmpty()) {
+			LOGGER.warn("Failed: {}.", failed);
+		}
+	}
+
+	/**
+	 * Fetches the listing then the POMs of the given artifact on the given
+	 * executor. The tasks are chained without ever blocking a thread of the
+	 * executor on another task, so that a pool can’t starve itself.
+	 */
+	private CompletableFuture<ImmutableSet<ArtifactRelease>> getReleasesAsync(Artifact artifact,
+			Optional<ArtifactWithReleases> previous, Descriptions descriptions, ExecutorService executor) {
+		return CompletableFuture.supplyAsync(() -> source.getVersions(artifact, previous.isPresent()), executor)
+				.thenCompose(versions -> {
+					if (versions.isEmpty()) {
+						return CompletableFuture.completedFuture(previous.get().getReleases());
+					}
+					switch (descriptions) {
+					case LATEST:
+						return describeLatestAsync(artifact, versions.get(), previous, executor);
+					case ALL:
+						return describeAsync(artifact, versions.get(), previous, executor);
+					default:
+						throw new AssertionError();
+					}
+				});
+	}
+
+	private CompletableFuture<ImmutableSet<ArtifactRelease>> describeLatestAsync(Artifact artifact,
+			ImmutableMap<String, Instant> versions, Optional<ArtifactWithReleases> previous,
+			ExecutorService executor) {
+		/**
+		 * Among releases of the same date, those listed last are considered the
+		 * newest. The sort is stable.
+		 */
+		final ImmutableList<String> newestFirst = ImmutableList.sortedCopyOf(
+				Comparator.comparing((String v) -> versions.get(v)).reversed(),
+				ImmutableList.copyOf(versions.keySet()).reverse());
+		return findDescriptionAsync(artifact, newestFirst, previous, executor)
+				.thenApply(description -> versions.entrySet().stream()
+						.map(e -> ArtifactRelease.given(artifact, e.getKey(), description, e.getValue()))
+						.collect(ImmutableSet.toImmutableSet()));
+	}
+
+	/**
+	 * Fetches the POMs of the given versions one after the other, until one has a
+	 * non-empty description. A POM that has not been modified since the previous
+	 * crawl ends the search with the description found by the previous crawl.
+	 *
+	 * @return the description found, or an empty string.
+	 */
+	private CompletableFuture<String> findDescriptionAsync(Artifact artifact, List<String> versions,
+			Optional<ArtifactWithReleases> previous, ExecutorService executor) {
+		if (versions.isEmpty()) {
+			return CompletableFuture.completedFuture("");
+		}
+		final String version = versions.get(0);
+		final Optional<ArtifactRelease> previousRelease = findRelease(previous, version);
+		return CompletableFuture
+				.supplyAsync(() -> source.getDescription(artifact, version, previousRelease.isPresent()), executor)
+				.thenCompose(description -> {
+					if (description.isEmpty()) {
+						return CompletableFuture.completedFuture(previousRelease.get().getDescription());
+					}
+					if (!description.get().isEmpty()) {
+						return CompletableFuture.completedFuture(description.get());
+					}
+					return findDescriptionAsync(artifact, versions.subList(1, versions.size()), previous, executor);
+				});
+	}
+
+	private CompletableFuture<ImmutableSet<ArtifactRelease>> describeAsync(Artifact artifact,
+			ImmutableMap<String, Instant> versions, Optional<ArtifactWithReleases> previous,
+			ExecutorService executor) {
+		final ImmutableList<CompletableFuture<ArtifactRelease>> releases = versions.entrySet().stream()
+				.map(e -> CompletableFuture.supplyAsync(
+						() -> getRelease(artifact, e.getKey(), e.getValue(), findRelease(previous, e.getKey())),
+						executor))
+				.collect(ImmutableList.toImmutableList());
+		return CompletableFuture.allOf(releases.toArray(new CompletableFuture<?>[releases.size()])).thenApply(
+				v -> releases.stream().map(CompletableFuture::join).collect(ImmutableSet.toImmutableSet()));
+	}
+
+	private void refresh() throws IOException {
+		source.refresh();
+	}
+
+	private static Optional<ArtifactRelease> findRelease(Optional<ArtifactWithReleases> artifact, String version) {
+		return artifact.flatMap(a -> a.getReleases().stream().filter(r -> r.getVersion().equals(version))
+				.collect(MoreCollectors.toOptional()));
+	}
+
+	/**
+	 * @param previous if present, the POM is requested conditionally, and the
+	 *                 description of this release is re-used if the POM has not
+	 *                 been modified.
+	 */
+	private ArtifactRelease getRelease(Artifact artifact, String version, Instant releaseDate,
+			Optional<ArtifactRelease> previous) {
+		final Optional<String> description = source.getDescription(artifact, version, previous.isPresent());
+		return ArtifactRelease.given(artifact, version, description.orElseGet(() -> previous.get().getDescription()),
+				releaseDate);
+	}
+
+	/**
+	 * @return the time spent so far in the phases of crawling: “catalog read”,
+	 *         and those of the source (see {@link RepositorySource#getMetrics()});
+	 *         and the bytes they transferred.
+	 */
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * @return the counts of the requests sent so far, by endpoint: see
+	 *         {@link RepositorySource#getStatistics()}.
+	 */
+	public ImmutableMap<String, RequestScheduler.Statistics> getStatistics() {
+		return source.getStatistics();
+	}
+
+	@Override
+	public void close() {
+		source.close();
 	}
 }
@@ -0,0 +1,153 @@
+package io.github.oliviercailloux.archetypes_browser;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.CountingInputStream;
+
+import io.github.oliviercailloux.http.Downloader;
+import io.github.oliviercailloux.metrics.Metrics;
+
+/**
+ * A mirror on disk of a repository laid out as Maven Central is, such as the
+ * mirror kept by a repository manager or by rsync: the versions of an artifact
+ * are the sub-directories of its directory, and the POMs are read straight from
+ * the files, without network.
+ * <p>
+ * The release date of a version is the modification time of its POM, or of its
+ * directory if it has no POM; a mirror whose files do not keep the
+ * modification times of the repository thus gives the dates of the copy. (The
+ * maven-metadata.xml files can’t help, as they have a single timestamp per
+ * artifact, not per version.)
+ * <p>
+ * There is no cheap way of telling that a directory or a POM has not changed
+ * since the previous crawl, so everything is read again: answers are never
+ * “not modified”.
+ */
+public class FileRepository implements RepositorySource {
+	@SuppressWarnings("unused")
+	private static final Logger LOGGER = LoggerFactory.getLogger(FileRepository.class);
+
+	/**
+	 * @param root the directory that mirrors the root of the repository, such as
+	 *             https://repo.maven.apache.org/maven2/.
+	 */
+	public static FileRepository at(Path root) {
+		return new FileRepository(root);
+	}
+
+	private final Path root;
+	private final Metrics metrics;
+
+	private FileRepository(Path root) {
+		checkArgument(Files.isDirectory(root), root);
+		this.root = root;
+		metrics = Metrics.create();
+	}
+
+	/**
+	 * Copies the catalog of the mirror, {@code archetype-catalog.xml} at its root,
+	 * to the current directory, if it is newer than the copy there, or if there is
+	 * no copy.
+	 */
+	@Override
+	public void refresh() throws IOException {
+		final Path catalog = root.resolve("archetype-catalog.xml");
+		final Path copy = Downloader.CATALOG_PATH;
+		if (!Files.exists(copy)
+				|| Files.getLastModifiedTime(catalog).compareTo(Files.getLastModifiedTime(copy)) > 0) {
+			Files.copy(catalog, copy, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+		}
+	}
+
+	private Path getDirectory(Artifact artifact) {
+		return root.resolve(artifact.getGroupIdSlashSeparated()).resolve(artifact.getArtifactId());
+	}
+
+	/**
+	 * @return the versions in the order of the names of their directories, as in
+	 *         the listings of Maven Central.
+	 */
+	@Override
+	public Optional<ImmutableMap<String, Instant>> getVersions(Artifact artifact, boolean conditional) {
+		final Path directory = getDirectory(artifact);
+		if (!Files.isDirectory(directory)) {
+			return Optional.of(ImmutableMap.of());
+		}
+		final Metrics.Timing reading = metrics.start("listing read");
+		final TreeMap<String, Instant> versions = new TreeMap<>();
+		try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, Files::isDirectory)) {
+			for (Path entry : entries) {
+				final String version = entry.getFileName().toString();
+				final Path pom = getPom(artifact, version);
+				final Path dated = Files.exists(pom) ? pom : entry;
+				versions.put(version, Files.getLastModifiedTime(dated).toInstant());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			reading.close();
+		}
+		return Optional.of(ImmutableMap.copyOf(versions));
+	}
+
+	private Path getPom(Artifact artifact, String version) {
+		return getDirectory(artifact).resolve(version).resolve(artifact.getArtifactId() + "-" + version + ".pom");
+	}
+
+	/**
+	 * Reads the POM only up to its description.
+	 */
+	@Override
+	public Optional<String> getDescription(Artifact artifact, String version, boolean conditional) {
+		final Path pom = getPom(artifact, version);
+		if (!Files.exists(pom)) {
+			return Optional.of("");
+		}
+		final Metrics.Timing reading = metrics.start("pom read");
+		try (CountingInputStream input = new CountingInputStream(
+				new BufferedInputStream(Files.newInputStream(pom)))) {
+			try {
+				return Optional.of(PomReader.readDescription(input));
+			} finally {
+				reading.addBytes(input.getCount());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (XMLStreamException e) {
+			throw new IllegalStateException(e);
+		} finally {
+			reading.close();
+		}
+	}
+
+	/**
+	 * @return the time spent so far in the phases “listing read” and “pom read”;
+	 *         and the bytes read from the POMs.
+	 */
+	@Override
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	@Override
+	public void close() {
+		/** Nothing is held open between reads. */
+	}
+}
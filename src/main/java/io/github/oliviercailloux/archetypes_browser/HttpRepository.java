@@ -0,0 +1,385 @@
+package io.github.oliviercailloux.archetypes_browser;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Verify.verify;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.xml.stream.XMLStreamException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.CountingInputStream;
+
+import io.github.oliviercailloux.http.BodyParser;
+import io.github.oliviercailloux.http.Downloader;
+import io.github.oliviercailloux.http.Fetched;
+import io.github.oliviercailloux.http.HttpCache;
+import io.github.oliviercailloux.http.PooledClient;
+import io.github.oliviercailloux.http.RequestScheduler;
+import io.github.oliviercailloux.http.Validator;
+import io.github.oliviercailloux.http.ValidatorStore;
+import io.github.oliviercailloux.metrics.Metrics;
+
+/**
+ * A remote repository laid out as Maven Central is, read over HTTP: the
+ * versions of an artifact are read from the directory listing of the artifact,
+ * with their release dates; and the POMs are fetched individually.
+ */
+public class HttpRepository implements RepositorySource {
+	@SuppressWarnings("unused")
+	private static final Logger LOGGER = LoggerFactory.getLogger(HttpRepository.class);
+
+	/**
+	 * Enough for the description of most POMs, which comes after the license
+	 * header and the coordinates.
+	 */
+	public static final int DEFAULT_HEAD_LENGTH = 2048;
+
+	private static final Pattern CONTENT_RANGE_PATTERN = Pattern.compile("bytes [0-9]+-[0-9]+/([0-9]+)");
+
+	/**
+	 * @param scheduler  the scheduler that all requests go through.
+	 * @param client     shared by all requests, and sized so that every thread of
+	 *                   the crawl may hold a connection.
+	 * @param validators the validators of the resources fetched in a previous
+	 *                   crawl, which this repository uses to make conditional
+	 *                   requests, and updates.
+	 * @param cache      if present, every listing and POM transferred is kept in
+	 *                   this cache, and the cached entries are revalidated instead
+	 *                   of being transferred again.
+	 */
+	public static HttpRepository given(URI repository, RequestScheduler scheduler, PooledClient client,
+			ValidatorStore validators, Optional<HttpCache> cache) {
+		return new HttpRepository(repository, scheduler, client, validators, cache, Optional.empty());
+	}
+
+	/**
+	 * Returns a repository that requests only the first bytes of each POM, with a
+	 * Range header, and parses the description from them; and requests the whole
+	 * POM only when these bytes do not tell the description, or when the server
+	 * ignores the Range header, in which case the response is read only up to the
+	 * description, as usual. The bytes that were not transferred are counted in
+	 * the metrics, as “pom bytes saved”.
+	 * <p>
+	 * Such a repository has no cache, as a cache needs whole bodies; and its
+	 * client should not ask for compressed responses (see {@link PooledClient}).
+	 *
+	 * @param headLength the number of bytes to request first, for example
+	 *                   {@link #DEFAULT_HEAD_LENGTH}.
+	 */
+	public static HttpRepository ranged(URI repository, RequestScheduler scheduler, PooledClient client,
+			ValidatorStore validators, int headLength) {
+		checkArgument(headLength >= 1);
+		return new HttpRepository(repository, scheduler, client, validators, Optional.empty(),
+				Optional.of(headLength));
+	}
+
+	private final URI repository;
+	private final RequestScheduler scheduler;
+	private final PooledClient client;
+	private final ValidatorStore validators;
+	private final Optional<HttpCache> cache;
+	/**
+	 * If present, the number of bytes requested first from each POM.
+	 */
+	private final Optional<Integer> headLength;
+	private final Metrics metrics;
+
+	private HttpRepository(URI repository, RequestScheduler scheduler, PooledClient client, ValidatorStore validators,
+			Optional<HttpCache> cache, Optional<Integer> headLength) {
+		this.repository = checkNotNull(repository);
+		this.scheduler = checkNotNull(scheduler);
+		this.client = checkNotNull(client);
+		this.validators = checkNotNull(validators);
+		this.cache = checkNotNull(cache);
+		this.headLength = checkNotNull(headLength);
+		verify(cache.isEmpty() || headLength.isEmpty());
+		metrics = Metrics.create();
+	}
+
+	@Override
+	public void refresh() throws IOException {
+		final Downloader downloader = Downloader.saving().using(scheduler).measuredBy(metrics);
+		final WebTarget target = client.target(repository).path("archetype-catalog.xml");
+		downloader.readAndDownload(target);
+	}
+
+	/**
+	 * Executes a GET request, conditional if asked for and if a validator is
+	 * known for the target, records the validator sent by the server, and parses
+	 * the body. If a cache is in use, a non-conditional request is turned into a
+	 * revalidation of the cached entry, if any, and the body is read from the
+	 * cache when possible.
+	 */
+	private <T> Fetched<T> get(String endpoint, WebTarget target, boolean conditional, BodyParser<T> parser) {
+		final URI uri = target.getUri();
+		final Optional<Validator> known = conditional ? validators.get(uri) : Optional.empty();
+		final Optional<Validator> cached = known.isPresent() ? Optional.empty()
+				: cache.flatMap(c -> c.getValidator(uri));
+		final Fetched<T> fetched = get(endpoint, target, known.or(() -> cached), parser);
+		if (fetched.getStatus() != Fetched.Status.NOT_MODIFIED || known.isPresent()) {
+			return fetched;
+		}
+		final Optional<byte[]> body = cache.get().read(uri, cached.get());
+		if (body.isPresent()) {
+			return Fetched.ok(parse(endpoint, parser, body.get()));
+		}
+		/** The entry has been evicted or replaced in the meantime. */
+		final Fetched<T> refetched = get(endpoint, target, Optional.empty(), parser);
+		verify(refetched.getStatus() != Fetched.Status.NOT_MODIFIED);
+		return refetched;
+	}
+
+	/**
+	 * Times the phases “endpoint fetch”, until the response headers, or, when
+	 * caching, until the whole body is read; and “endpoint parse”, which, when
+	 * not caching, includes transferring the body, as the parser reads it from
+	 * the connection.
+	 *
+	 * @param endpoint  the label under which the scheduler counts the request.
+	 * @param validator if present, the request is made conditional with it.
+	 */
+	private <T> Fetched<T> get(String endpoint, WebTarget target, Optional<Validator> validator,
+			BodyParser<T> parser) {
+		final URI uri = target.getUri();
+		return scheduler.call(endpoint, uri, attempt -> {
+			final Invocation.Builder request = target.request(MediaType.TEXT_PLAIN);
+			validator.ifPresent(v -> v.addTo(request));
+			final Metrics.Timing fetching = metrics.start(endpoint + " fetch");
+			try (Response response = request.get()) {
+				attempt.responded();
+				RequestScheduler.checkTransient(response);
+				if (response.getStatus() == Response.Status.NOT_FOUND.getStatusCode()) {
+					validators.remove(uri);
+					return Fetched.notFound();
+				}
+				if (response.getStatus() == Response.Status.NOT_MODIFIED.getStatusCode()) {
+					verify(validator.isPresent());
+					return Fetched.notModified();
+				}
+				validators.record(uri, response);
+				if (cache.isPresent()) {
+					final byte[] body = response.readEntity(byte[].class);
+					fetching.addBytes(body.length);
+					fetching.close();
+					cache.get().write(uri, Validator.from(response), body);
+					return Fetched.ok(parse(endpoint, parser, body));
+				}
+				fetching.close();
+				/**
+				 * The parser may stop before the end of the body, in which case closing the
+				 * stream cancels the rest of the transfer.
+				 */
+				try (CountingInputStream body = new CountingInputStream(response.readEntity(InputStream.class))) {
+					final Metrics.Timing parsing = metrics.start(endpoint + " parse");
+					try {
+						return Fetched.ok(parser.parse(body));
+					} finally {
+						parsing.addBytes(body.getCount());
+						parsing.close();
+					}
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			} finally {
+				fetching.close();
+			}
+		});
+	}
+
+	private <T> T parse(String endpoint, BodyParser<T> parser, byte[] body) {
+		final Metrics.Timing parsing = metrics.start(endpoint + " parse");
+		try {
+			return parser.parse(new ByteArrayInputStream(body));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			parsing.close();
+		}
+	}
+
+	private WebTarget getDirectory(Artifact artifact) {
+		return client.target(repository).path(artifact.getGroupIdSlashSeparated()).path("/")
+				.path(artifact.getArtifactId()).path("/");
+	}
+
+	/**
+	 * Requests the listing of the artifact, conditionally if asked for.
+	 */
+	@Override
+	public Optional<ImmutableMap<String, Instant>> getVersions(Artifact artifact, boolean conditional) {
+		final WebTarget target = getDirectory(artifact);
+		LOGGER.debug("Querying {}.", target.toString());
+		final Fetched<ImmutableMap<String, Instant>> fetched = get("listing", target, conditional,
+				ListingParser::parse);
+		switch (fetched.getStatus()) {
+		case NOT_MODIFIED:
+			return Optional.empty();
+		case NOT_FOUND:
+			return Optional.of(ImmutableMap.of());
+		case OK:
+			return Optional.of(fetched.getContent());
+		default:
+			throw new AssertionError();
+		}
+	}
+
+	/**
+	 * Requests the POM, conditionally if asked for.
+	 */
+	@Override
+	public Optional<String> getDescription(Artifact artifact, String version, boolean conditional) {
+		final WebTarget pomTarget = getDirectory(artifact).path(version)
+				.path(artifact.getArtifactId() + "-" + version + ".pom");
+		LOGGER.debug("Getting {}.", pomTarget);
+		final Fetched<String> fetched = headLength.isPresent() ? getFromHead(pomTarget, conditional, headLength.get())
+				: get("pom", pomTarget, conditional, HttpRepository::readDescription);
+		/**
+		 * noDate does not imply notFound:
+		 * https://repo.maven.apache.org/maven2/com/agilejava/docbkx/docbkx-quickstart-archetype/2.0.10/docbkx-quickstart-archetype-2.0.10.pom
+		 * exists though no date.
+		 *
+		 * notFound does not imply noDate:
+		 * https://repo.maven.apache.org/maven2/com/github/adminfaces/admin-starter-archetype/1.0.0-RC20/admin-starter-archetype-1.0.0-RC20.pom
+		 * does not exist though this release has a date.
+		 */
+		switch (fetched.getStatus()) {
+		case NOT_MODIFIED:
+			return Optional.empty();
+		case NOT_FOUND:
+			return Optional.of("");
+		case OK:
+			return Optional.of(fetched.getContent());
+		default:
+			throw new AssertionError();
+		}
+	}
+
+	/**
+	 * Requests the first bytes of the given POM, conditionally if asked for and
+	 * if a validator is known, records the validator sent by the server, and
+	 * parses the description; then, if the description is not known yet,
+	 * requests the whole POM, unconditionally, as it is known to have been
+	 * modified.
+	 */
+	private Fetched<String> getFromHead(WebTarget target, boolean conditional, int length) {
+		final URI uri = target.getUri();
+		final Optional<Validator> validator = conditional ? validators.get(uri) : Optional.empty();
+		final Fetched<Optional<String>> head = scheduler.call("pom", uri, attempt -> {
+			/** A range of a compressed body could not be parsed on its own. */
+			final Invocation.Builder request = target.request(MediaType.TEXT_PLAIN)
+					.header("Range", "bytes=0-" + (length - 1)).header("Accept-Encoding", "identity");
+			validator.ifPresent(v -> v.addTo(request));
+			final Metrics.Timing fetching = metrics.start("pom fetch");
+			try (Response response = request.get()) {
+				attempt.responded();
+				RequestScheduler.checkTransient(response);
+				if (response.getStatus() == Response.Status.NOT_FOUND.getStatusCode()) {
+					validators.remove(uri);
+					return Fetched.notFound();
+				}
+				if (response.getStatus() == Response.Status.NOT_MODIFIED.getStatusCode()) {
+					verify(validator.isPresent());
+					return Fetched.notModified();
+				}
+				/** Even for a part, the validators are those of the whole POM. */
+				validators.record(uri, response);
+				if (response.getStatus() != Response.Status.PARTIAL_CONTENT.getStatusCode()) {
+					fetching.close();
+					try (CountingInputStream body = new CountingInputStream(response.readEntity(InputStream.class))) {
+						final Metrics.Timing parsing = metrics.start("pom parse");
+						try {
+							return Fetched.ok(PomReader.readDescriptionFromPrefix(body));
+						} finally {
+							parsing.addBytes(body.getCount());
+							parsing.close();
+						}
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+				final byte[] prefix = response.readEntity(byte[].class);
+				fetching.addBytes(prefix.length);
+				fetching.close();
+				final Optional<String> description = parse("pom", PomReader::readDescriptionFromPrefix, prefix);
+				final Matcher range = CONTENT_RANGE_PATTERN
+						.matcher(Strings.nullToEmpty(response.getHeaderString("Content-Range")));
+				if (description.isPresent() && range.matches()) {
+					metrics.count("pom bytes saved", Long.parseLong(range.group(1)) - prefix.length);
+				}
+				return Fetched.ok(description);
+			} finally {
+				fetching.close();
+			}
+		});
+		if (head.getStatus() != Fetched.Status.OK) {
+			return head.getStatus() == Fetched.Status.NOT_FOUND ? Fetched.notFound() : Fetched.notModified();
+		}
+		if (head.getContent().isPresent()) {
+			return Fetched.ok(head.getContent().get());
+		}
+		LOGGER.debug("No description in the head of {}.", uri);
+		return get("pom", target, Optional.empty(), HttpRepository::readDescription);
+	}
+
+	/**
+	 * @return the description found in the given POM, or an empty string if it
+	 *         has none.
+	 */
+	private static String readDescription(InputStream pom) {
+		try {
+			return PomReader.readDescription(pom);
+		} catch (XMLStreamException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Forgets the validators of the listing and of the POMs of the given artifact.
+	 */
+	@Override
+	public void forget(Artifact artifact) {
+		validators.removeUnder(getDirectory(artifact).getUri());
+	}
+
+	/**
+	 * @return the time spent so far in the phases “listing fetch”, “listing
+	 *         parse”, “pom fetch”, “pom parse”, and “download” (of the catalog);
+	 *         and the bytes they transferred.
+	 */
+	@Override
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * @return the counts of the requests sent so far, by endpoint: “listing”,
+	 *         “pom”, and “download” (of the catalog).
+	 */
+	@Override
+	public ImmutableMap<String, RequestScheduler.Statistics> getStatistics() {
+		return scheduler.getStatistics();
+	}
+
+	@Override
+	public void close() {
+		client.close();
+	}
+}
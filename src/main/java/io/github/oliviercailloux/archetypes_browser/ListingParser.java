@@ -0,0 +1,210 @@
+package io.github.oliviercailloux.archetypes_browser;
+
+import static com.google.common.base.Verify.verify;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Parses the directory listing of an artifact, as served by Maven Central (an
+ * Apache-style index page), in a single pass over its characters, without
+ * building any tree.
+ * <p>
+ * The listing starts with a link to the parent directory, then has one link
+ * per version, each followed by the release date (or by dashes, when the date
+ * is unknown), then usually some links to maven-metadata.xml files.
+ */
+public class ListingParser {
+	@SuppressWarnings("unused")
+	private static final Logger LOGGER = LoggerFactory.getLogger(ListingParser.class);
+
+	private static final Pattern DATE_PATTERN = Pattern.compile(" *([0-9-]+ [0-9][0-9]:[0-9][0-9]) *- *\n");
+
+	private static final Pattern UNKNOWN_DATE_PATTERN = Pattern.compile(" *- *- *\n[ \\t]*");
+
+	private static final Pattern ATTRIBUTE_PATTERN = Pattern.compile("([a-zA-Z-]+)=\"([^\"]*)\"");
+
+	private static final DateTimeFormatter FORMATTER = new DateTimeFormatterBuilder()
+			.append(DateTimeFormatter.ISO_DATE).appendLiteral(' ').append(DateTimeFormatter.ISO_LOCAL_TIME)
+			.toFormatter();
+
+	private static final Instant OLD_MODE_LIMIT = Instant.parse("2012-01-01T00:00:00Z");
+
+	/**
+	 * Release dates that are unknown are given as {@link Fetcher#EARLY}.
+	 *
+	 * @return the release dates indexed by version, in the order of the listing.
+	 */
+	public static ImmutableMap<String, Instant> parse(InputStream input) throws IOException {
+		return new ListingParser(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))).parse();
+	}
+
+	public static ImmutableMap<String, Instant> parse(Reader reader) throws IOException {
+		return new ListingParser(reader).parse();
+	}
+
+	private final Reader reader;
+	private final StringBuilder buffer;
+	private int anchors;
+	private int mavenNodes;
+	private boolean titleMissing;
+	private final ImmutableMap.Builder<String, Instant> versionsBuilder;
+
+	private ListingParser(Reader reader) {
+		this.reader = reader;
+		buffer = new StringBuilder();
+		anchors = 0;
+		mavenNodes = 0;
+		titleMissing = false;
+		versionsBuilder = ImmutableMap.builder();
+	}
+
+	private ImmutableMap<String, Instant> parse() throws IOException {
+		/**
+		 * The anchor that has been closed most recently, whose following text is
+		 * being read.
+		 */
+		Optional<Anchor> closed = Optional.empty();
+		Optional<String> openTag = Optional.empty();
+		boolean ended = false;
+		while (!ended) {
+			readUntil('<');
+			final String text = buffer.toString();
+			ended = !readUntil('>');
+			final String tag = buffer.toString();
+			if (closed.isPresent()) {
+				onAnchor(closed.get(), decode(text));
+				closed = Optional.empty();
+			}
+			if (openTag.isPresent()) {
+				verify(tag.equals("/a"), tag);
+				closed = Optional.of(new Anchor(openTag.get(), decode(text)));
+				openTag = Optional.empty();
+			} else if (tag.startsWith("a ")) {
+				openTag = Optional.of(tag);
+			}
+		}
+		verify(openTag.isEmpty());
+		verify(anchors >= 1);
+
+		/**
+		 * Example of oldMode: com.taobao.itest; dk.jacobve.maven.archetypes;
+		 * org.appfuse.
+		 *
+		 * Example with some unknown dates:
+		 * https://repo.maven.apache.org/maven2/com/vaadin/vaadin-archetype-application/.
+		 */
+		final boolean oldMode = mavenNodes == 0;
+		verify(oldMode || (mavenNodes >= 3 && mavenNodes <= 9));
+		verify(oldMode || !titleMissing);
+		final ImmutableMap<String, Instant> versions = versionsBuilder.build();
+		if (oldMode) {
+			verify(versions.values().stream().allMatch(i -> i.isBefore(OLD_MODE_LIMIT)));
+		}
+		return versions;
+	}
+
+	private void onAnchor(Anchor anchor, String following) {
+		++anchors;
+		final Matcher attributes = ATTRIBUTE_PATTERN.matcher(anchor.tag);
+		String href = null;
+		String title = null;
+		while (attributes.find()) {
+			final String name = attributes.group(1);
+			if (name.equals("href")) {
+				href = decode(attributes.group(2));
+			} else if (name.equals("title")) {
+				title = decode(attributes.group(2));
+			}
+		}
+		if (anchors == 1) {
+			verify(anchor.text.equals("../"), anchor.text);
+			return;
+		}
+		verify(href != null, anchor.tag);
+		/**
+		 * Usually, there’s a node maven-metadata.xml, then maven-metadata.xml.md5, then
+		 * maven-metadata.xml.sha1, but occasionally there’s up to nine such nodes
+		 * (example: org.mule.tools:mule-transport-archetype), and in oldMode, there’s
+		 * zero.
+		 */
+		if (href.startsWith("maven-metadata")) {
+			++mavenNodes;
+			return;
+		}
+		verify(mavenNodes == 0);
+		if (title == null) {
+			titleMissing = true;
+		} else {
+			verify(href.equals(title), href);
+		}
+		verify(anchor.text.equals(href));
+		verify(href.endsWith("/"));
+		final String version = href.substring(0, href.length() - 1);
+		LOGGER.debug("Version: {}.", version);
+		final Matcher dateMatcher = DATE_PATTERN.matcher(following);
+		final Matcher unknownDateMatcher = UNKNOWN_DATE_PATTERN.matcher(following);
+		final boolean dateMatched = dateMatcher.matches();
+		final boolean unknownDateMatched = unknownDateMatcher.matches();
+		verify(dateMatched || unknownDateMatched, "%s, %s", version, following);
+		final Instant instant;
+		if (unknownDateMatched) {
+			instant = Fetcher.EARLY;
+		} else {
+			final LocalDateTime date = FORMATTER.parse(dateMatcher.group(1), LocalDateTime::from);
+			instant = date.toInstant(ZoneOffset.UTC);
+		}
+		versionsBuilder.put(version, instant);
+	}
+
+	/**
+	 * Reads into the buffer up to the given character, excluded, or up to the end
+	 * of the stream, and consumes the given character.
+	 *
+	 * @return {@code false} iff the end of the stream has been reached.
+	 */
+	private boolean readUntil(char end) throws IOException {
+		buffer.setLength(0);
+		int c = reader.read();
+		while (c != -1 && c != end) {
+			buffer.append((char) c);
+			c = reader.read();
+		}
+		return c != -1;
+	}
+
+	private static String decode(String html) {
+		if (html.indexOf('&') == -1) {
+			return html;
+		}
+		return html.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"").replace("&#39;", "'")
+				.replace("&amp;", "&");
+	}
+
+	private static class Anchor {
+		private final String tag;
+		private final String text;
+
+		private Anchor(String tag, String text) {
+			this.tag = tag;
+			this.text = text;
+		}
+	}
+}
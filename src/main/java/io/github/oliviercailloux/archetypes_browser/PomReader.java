@@ -0,0 +1,78 @@
+package io.github.oliviercailloux.archetypes_browser;
+
+import java.io.InputStream;
+import java.util.Optional;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads the description of a POM as a stream, stopping as soon as the
+ * description has been read, without reading the rest of the POM nor building
+ * any tree.
+ */
+public class PomReader {
+	private static final XMLInputFactory FACTORY = XmlReaders.newFactory();
+
+	/**
+	 * Reads the given stream up to the end of the top-level description element,
+	 * or up to the end of the root element if there is no such element. The
+	 * given stream is not closed.
+	 *
+	 * @return the description, or an empty string if the POM has none.
+	 */
+	public static String readDescription(InputStream input) throws XMLStreamException {
+		return read(input).orElse("");
+	}
+
+	/**
+	 * Reads the given stream, which may hold only the start of a POM, as
+	 * {@link #readDescription(InputStream)} does.
+	 *
+	 * @return the description, or an empty string if the POM has none; or an
+	 *         empty optional if the stream ends, or is not well-formed, before it
+	 *         tells.
+	 */
+	public static Optional<String> readDescriptionFromPrefix(InputStream prefix) {
+		try {
+			return read(prefix);
+		} catch (XMLStreamException e) {
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * @return an empty optional iff the stream ends before the description or the
+	 *         end of the root element.
+	 */
+	private static Optional<String> read(InputStream input) throws XMLStreamException {
+		final XMLStreamReader reader;
+		/** XMLInputFactory is not guaranteed to be thread-safe. */
+		synchronized (FACTORY) {
+			reader = FACTORY.createXMLStreamReader(input);
+		}
+		try {
+			/** The depth of the current element, the root element being at depth one. */
+			int depth = 0;
+			while (reader.hasNext()) {
+				final int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					++depth;
+					if (depth == 2 && reader.getLocalName().equalsIgnoreCase("description")) {
+						return Optional.of(reader.getElementText());
+					}
+				} else if (event == XMLStreamConstants.END_ELEMENT) {
+					--depth;
+					if (depth == 0) {
+						return Optional.of("");
+					}
+				}
+			}
+			return Optional.empty();
+		} finally {
+			reader.close();
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package io.github.oliviercailloux.archetypes_browser;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The releases of a set of artifacts, stored column by column in primitive
+ * arrays, for scans that should not chase one object per release. The
+ * artifacts are numbered (by ordinal) in the order of the given set, and the
+ * rows (one per release) are grouped by artifact, in the same order. Versions
+ * and descriptions are dictionary-encoded. Release dates are stored to the
+ * second.
+ * <p>
+ * Immutable.
+ */
+public class ReleaseTable {
+	public static ReleaseTable of(Set<ArtifactWithReleases> artifacts) {
+		final int rowCount = artifacts.stream().mapToInt(a -> a.getReleases().size()).sum();
+		return new ReleaseTable(artifacts, rowCount);
+	}
+
+	private final ImmutableList<Artifact> artifacts;
+	/**
+	 * The rows of the artifact of ordinal i are those from starts[i] (inclusive)
+	 * to starts[i + 1] (exclusive).
+	 */
+	private final int[] starts;
+	private final int[] artifactOrdinals;
+	private final long[] epochSeconds;
+	private final ImmutableList<String> versions;
+	private final int[] versionCodes;
+	private final ImmutableList<String> descriptions;
+	private final int[] descriptionCodes;
+
+	private ReleaseTable(Set<ArtifactWithReleases> withReleases, int rowCount) {
+		final ImmutableList.Builder<Artifact> artifactsBuilder = ImmutableList.builder();
+		starts = new int[withReleases.size() + 1];
+		artifactOrdinals = new int[rowCount];
+		epochSeconds = new long[rowCount];
+		versionCodes = new int[rowCount];
+		descriptionCodes = new int[rowCount];
+		final Map<String, Integer> versionDictionary = new HashMap<>();
+		final ImmutableList.Builder<String> versionsBuilder = ImmutableList.builder();
+		final Map<String, Integer> descriptionDictionary = new HashMap<>();
+		final ImmutableList.Builder<String> descriptionsBuilder = ImmutableList.builder();
+		int ordinal = 0;
+		int row = 0;
+		for (ArtifactWithReleases artifact : withReleases) {
+			artifactsBuilder.add(artifact.getArtifact());
+			starts[ordinal] = row;
+			for (ArtifactRelease release : artifact.getReleases()) {
+				artifactOrdinals[row] = ordinal;
+				epochSeconds[row] = release.getReleaseDate().getEpochSecond();
+				versionCodes[row] = encode(release.getVersion(), versionDictionary, versionsBuilder);
+				descriptionCodes[row] = encode(release.getDescription(), descriptionDictionary, descriptionsBuilder);
+				++row;
+			}
+			++ordinal;
+		}
+		starts[ordinal] = row;
+		artifacts = artifactsBuilder.build();
+		versions = versionsBuilder.build();
+		descriptions = descriptionsBuilder.build();
+	}
+
+	private static int encode(String value, Map<String, Integer> dictionary, ImmutableList.Builder<String> values) {
+		return dictionary.computeIfAbsent(value, v -> {
+			values.add(v);
+			return dictionary.size();
+		});
+	}
+
+	/**
+	 * @return the artifacts, indexed by ordinal.
+	 */
+	public ImmutableList<Artifact> getArtifacts() {
+		return artifacts;
+	}
+
+	/**
+	 * @return the number of rows, that is, of releases.
+	 */
+	public int size() {
+		return epochSeconds.length;
+	}
+
+	public int getArtifactOrdinal(int row) {
+		return artifactOrdinals[row];
+	}
+
+	public Instant getReleaseDate(int row) {
+		return Instant.ofEpochSecond(epochSeconds[row]);
+	}
+
+	public ArtifactRelease getRelease(int row) {
+		checkElementIndex(row, size());
+		return ArtifactRelease.given(artifacts.get(artifactOrdinals[row]), versions.get(versionCodes[row]),
+				descriptions.get(descriptionCodes[row]), getReleaseDate(row));
+	}
+
+	/**
+	 * @return the number of releases dated from the given start (inclusive) to the
+	 *         given end (exclusive).
+	 */
+	public int countReleasedBetween(Instant start, Instant end) {
+		final long startSeconds = start.getEpochSecond();
+		final long endSeconds = end.getEpochSecond();
+		int count = 0;
+		for (long seconds : epochSeconds) {
+			if (seconds >= startSeconds && seconds < endSeconds) {
+				++count;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return the earliest release date of each artifact, in epoch seconds,
+	 *         indexed by ordinal.
+	 */
+	public long[] getEarliestEpochSeconds() {
+		final long[] earliest = new long[artifacts.size()];
+		for (int ordinal = 0; ordinal < artifacts.size(); ++ordinal) {
+			long min = Long.MAX_VALUE;
+			for (int row = starts[ordinal]; row < starts[ordinal + 1]; ++row) {
+				min = Math.min(min, epochSeconds[row]);
+			}
+			earliest[ordinal] = min;
+		}
+		return earliest;
+	}
+
+	/**
+	 * @return the latest release date of each artifact, in epoch seconds, indexed
+	 *         by ordinal.
+	 */
+	public long[] getLatestEpochSeconds() {
+		final long[] latest = new long[artifacts.size()];
+		for (int ordinal = 0; ordinal < artifacts.size(); ++ordinal) {
+			long max = Long.MIN_VALUE;
+			for (int row = starts[ordinal]; row < starts[ordinal + 1]; ++row) {
+				max = Math.max(max, epochSeconds[row]);
+			}
+			latest[ordinal] = max;
+		}
+		return latest;
+	}
+
+	/**
+	 * @return the artifacts whose earliest release is strictly before the first
+	 *         given date and whose latest release is strictly after the second
+	 *         given date, in ordinal order.
+	 */
+	public ImmutableList<Artifact> getArtifactsReleasedBeforeAndAfter(Instant firstBefore, Instant lastAfter) {
+		final long[] earliest = getEarliestEpochSeconds();
+		final long[] latest = getLatestEpochSeconds();
+		final long beforeSeconds = firstBefore.getEpochSecond();
+		final long afterSeconds = lastAfter.getEpochSecond();
+		final ImmutableList.Builder<Artifact> chosen = ImmutableList.builder();
+		for (int ordinal = 0; ordinal < artifacts.size(); ++ordinal) {
+			if (earliest[ordinal] < beforeSeconds && latest[ordinal] > afterSeconds) {
+				chosen.add(artifacts.get(ordinal));
+			}
+		}
+		return chosen.build();
+	}
+}
@@ -0,0 +1,70 @@
+package io.github.oliviercailloux.archetypes_browser;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Optional;
+
+import com.google.common.collect.ImmutableMap;
+
+import io.github.oliviercailloux.http.RequestScheduler;
+import io.github.oliviercailloux.metrics.Metrics;
+
+/**
+ * Where a {@link Fetcher} finds the versions and the POMs of the artifacts it
+ * crawls: a remote repository ({@link HttpRepository}), or a mirror of one on
+ * disk ({@link FileRepository}). Implementations must be safe for use by
+ * concurrent threads.
+ */
+public interface RepositorySource extends AutoCloseable {
+	/**
+	 * Updates the copy of the catalog of this repository kept in the current
+	 * directory, {@code archetype-catalog.xml}, if it is out of date.
+	 */
+	void refresh() throws IOException;
+
+	/**
+	 * @param conditional whether the source may answer that the versions have not
+	 *                    been modified since the previous crawl.
+	 * @return the release dates indexed by version, in the order of the listing,
+	 *         empty iff the artifact does not exist; or an empty optional iff the
+	 *         versions have not been modified.
+	 */
+	Optional<ImmutableMap<String, Instant>> getVersions(Artifact artifact, boolean conditional);
+
+	/**
+	 * @param conditional whether the source may answer that the POM has not been
+	 *                    modified since the previous crawl.
+	 * @return the description, empty if the POM does not exist or has no
+	 *         description; or an empty optional iff the POM has not been
+	 *         modified.
+	 */
+	Optional<String> getDescription(Artifact artifact, String version, boolean conditional);
+
+	/**
+	 * Forgets what this source knows of the given artifact from previous crawls,
+	 * so that it never answers “not modified” about it until it has been read
+	 * again; for use when the crawl of the artifact failed midway, and what was
+	 * read of it has been discarded. Does nothing by default, for sources that
+	 * know nothing from previous crawls.
+	 */
+	default void forget(Artifact artifact) {
+		/** Nothing to forget. */
+	}
+
+	/**
+	 * @return the time spent so far in the phases of reading from this source, and
+	 *         the bytes they transferred.
+	 */
+	Metrics getMetrics();
+
+	/**
+	 * @return the counts of the requests sent so far, by endpoint; empty if this
+	 *         source sends no requests.
+	 */
+	default ImmutableMap<String, RequestScheduler.Statistics> getStatistics() {
+		return ImmutableMap.of();
+	}
+
+	@Override
+	void close();
+}
@@ -0,0 +1,21 @@
+package io.github.oliviercailloux.archetypes_browser;
+
+import javax.xml.stream.XMLInputFactory;
+
+/**
+ * The configuration shared by the streaming readers of the XML served by the
+ * repository: no DTD and no external entities, as the documents come from the
+ * network; and coalesced text, so that each text element is read in one go.
+ */
+class XmlReaders {
+	static XMLInputFactory newFactory() {
+		final XMLInputFactory factory = XMLInputFactory.newFactory();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+		return factory;
+	}
+
+	private XmlReaders() {
+	}
+}
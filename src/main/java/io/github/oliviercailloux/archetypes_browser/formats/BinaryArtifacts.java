@@ -0,0 +1,262 @@
+package io.github.oliviercailloux.archetypes_browser.formats;
+
+import static com.google.common.base.Verify.verify;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import io.github.oliviercailloux.archetypes_browser.Artifact;
+import io.github.oliviercailloux.archetypes_browser.ArtifactRelease;
+import io.github.oliviercailloux.archetypes_browser.ArtifactWithReleases;
+
+/**
+ * A compact binary snapshot of artifacts with their releases, much faster to
+ * load than their JSON form, which it round-trips with exactly (including the
+ * order of the artifacts and of their releases).
+ * <p>
+ * The snapshot starts with a magic number, then holds a table of the distinct
+ * group ids, artifact ids and descriptions, then the artifacts, each given by
+ * the indices of its group id and artifact id, followed by its releases. A
+ * release is given by its version, the index of its description, and its
+ * release date as a difference in epoch seconds with the previous release
+ * date of the artifact (or with the epoch), plus nanoseconds. Integers are
+ * written as variable-length quantities, strings as UTF-8 prefixed with their
+ * length. The snapshot ends with an index giving the offset of each string and
+ * of each artifact, so that they can be decoded independently (see
+ * {@link ReleaseStore}), then a footer giving the number of strings, the number
+ * of artifacts, and the offset of the index, as fixed-width integers.
+ */
+public class BinaryArtifacts {
+	/**
+	 * “ARB2”: the snapshots of the first layout, with no index nor footer,
+	 * started with “ARB1”.
+	 */
+	private static final int MAGIC = 0x41524232;
+
+	static final int FOOTER_BYTES = 3 * Integer.BYTES;
+
+	/**
+	 * Writes the snapshot to a sibling file first, then moves it in place, so that
+	 * the given path holds either the previous snapshot or the complete new one,
+	 * never a truncated one.
+	 */
+	public static void write(Set<ArtifactWithReleases> artifacts, Path path) throws IOException {
+		final Map<String, Integer> strings = new LinkedHashMap<>();
+		for (ArtifactWithReleases withReleases : artifacts) {
+			strings.putIfAbsent(withReleases.getArtifact().getGroupId(), strings.size());
+			strings.putIfAbsent(withReleases.getArtifact().getArtifactId(), strings.size());
+			for (ArtifactRelease release : withReleases.getReleases()) {
+				strings.putIfAbsent(release.getDescription(), strings.size());
+			}
+		}
+
+		final Encoder encoder = new Encoder();
+		encoder.writeInt(MAGIC);
+		final int[] stringOffsets = new int[strings.size()];
+		encoder.writeVarLong(strings.size());
+		int stringIndex = 0;
+		for (String string : strings.keySet()) {
+			stringOffsets[stringIndex] = encoder.size();
+			++stringIndex;
+			encoder.writeString(string);
+		}
+		final int[] artifactOffsets = new int[artifacts.size()];
+		encoder.writeVarLong(artifacts.size());
+		int artifactIndex = 0;
+		for (ArtifactWithReleases withReleases : artifacts) {
+			artifactOffsets[artifactIndex] = encoder.size();
+			++artifactIndex;
+			long previousSeconds = 0;
+			encoder.writeVarLong(strings.get(withReleases.getArtifact().getGroupId()));
+			encoder.writeVarLong(strings.get(withReleases.getArtifact().getArtifactId()));
+			encoder.writeVarLong(withReleases.getReleases().size());
+			for (ArtifactRelease release : withReleases.getReleases()) {
+				encoder.writeString(release.getVersion());
+				encoder.writeVarLong(strings.get(release.getDescription()));
+				final Instant date = release.getReleaseDate();
+				encoder.writeVarLong(zigZag(date.getEpochSecond() - previousSeconds));
+				encoder.writeVarLong(date.getNano());
+				previousSeconds = date.getEpochSecond();
+			}
+		}
+		final int indexOffset = encoder.size();
+		for (int offset : stringOffsets) {
+			encoder.writeInt(offset);
+		}
+		for (int offset : artifactOffsets) {
+			encoder.writeInt(offset);
+		}
+		encoder.writeInt(strings.size());
+		encoder.writeInt(artifacts.size());
+		encoder.writeInt(indexOffset);
+
+		final Path partialPath = path.resolveSibling(path.getFileName() + ".part");
+		try {
+			try (FileChannel channel = FileChannel.open(partialPath, StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				final ByteBuffer buffer = encoder.asBuffer();
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				channel.force(true);
+			}
+			Files.move(partialPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			/** Left only if writing or moving failed. */
+			Files.deleteIfExists(partialPath);
+		}
+	}
+
+	public static ImmutableSet<ArtifactWithReleases> read(Path path) throws IOException {
+		final ByteBuffer buffer = map(path);
+		final int indexOffset = buffer.getInt(buffer.limit() - Integer.BYTES);
+		final int stringCount = readCount(buffer);
+		final ImmutableList.Builder<String> stringsBuilder = ImmutableList.builderWithExpectedSize(stringCount);
+		for (int i = 0; i < stringCount; ++i) {
+			stringsBuilder.add(readString(buffer));
+		}
+		final ImmutableList<String> strings = stringsBuilder.build();
+
+		final int artifactCount = readCount(buffer);
+		final ImmutableSet.Builder<ArtifactWithReleases> artifacts = ImmutableSet
+				.builderWithExpectedSize(artifactCount);
+		for (int i = 0; i < artifactCount; ++i) {
+			artifacts.add(readWithReleases(buffer, strings::get));
+		}
+		verify(buffer.position() == indexOffset);
+		return artifacts.build();
+	}
+
+	/**
+	 * Maps the given snapshot in memory, and checks its magic number and that its
+	 * footer designates an index that ends right before it.
+	 *
+	 * @return a buffer positioned after the magic number.
+	 */
+	static ByteBuffer map(Path path) throws IOException {
+		final MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			/** The mapping remains valid once the channel is closed. */
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		verify(buffer.limit() >= Integer.BYTES + FOOTER_BYTES && buffer.getInt() == MAGIC, "Not a snapshot: %s.",
+				path);
+		final int footerOffset = buffer.limit() - FOOTER_BYTES;
+		final long stringCount = buffer.getInt(footerOffset);
+		final long artifactCount = buffer.getInt(footerOffset + Integer.BYTES);
+		final long indexOffset = buffer.getInt(footerOffset + 2 * Integer.BYTES);
+		verify(stringCount >= 0 && artifactCount >= 0 && indexOffset >= Integer.BYTES
+				&& indexOffset + (stringCount + artifactCount) * Integer.BYTES == footerOffset,
+				"Corrupt snapshot: %s, its footer designates %s strings and %s artifacts indexed at %s, in %s bytes.",
+				path, stringCount, artifactCount, indexOffset, buffer.limit());
+		return buffer;
+	}
+
+	/**
+	 * Reads the artifact at the position of the given buffer, up to its end.
+	 */
+	static Artifact readArtifact(ByteBuffer buffer, IntFunction<String> strings) {
+		return Artifact.given(strings.apply(readCount(buffer)), strings.apply(readCount(buffer)));
+	}
+
+	/**
+	 * Reads the artifact with its releases at the position of the given buffer,
+	 * up to its end.
+	 */
+	static ArtifactWithReleases readWithReleases(ByteBuffer buffer, IntFunction<String> strings) {
+		final Artifact artifact = readArtifact(buffer, strings);
+		final int releaseCount = readCount(buffer);
+		final ImmutableSet.Builder<ArtifactRelease> releases = ImmutableSet.builderWithExpectedSize(releaseCount);
+		long previousSeconds = 0;
+		for (int j = 0; j < releaseCount; ++j) {
+			final String version = readString(buffer);
+			final String description = strings.apply(readCount(buffer));
+			final long seconds = previousSeconds + unZigZag(readVarLong(buffer));
+			final Instant date = Instant.ofEpochSecond(seconds, readVarLong(buffer));
+			previousSeconds = seconds;
+			releases.add(ArtifactRelease.given(artifact, version, description, date));
+		}
+		return ArtifactWithReleases.given(releases.build());
+	}
+
+	private static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static long unZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static long readVarLong(ByteBuffer buffer) {
+		long value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			verify(shift < 64);
+			b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	static int readCount(ByteBuffer buffer) {
+		return Math.toIntExact(readVarLong(buffer));
+	}
+
+	static String readString(ByteBuffer buffer) {
+		final byte[] bytes = new byte[readCount(buffer)];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static class Encoder extends ByteArrayOutputStream {
+		public void writeInt(int value) {
+			write(value >>> 24);
+			write(value >>> 16);
+			write(value >>> 8);
+			write(value);
+		}
+
+		/**
+		 * @param value must be non-negative, or zigzag-encoded.
+		 */
+		public void writeVarLong(long value) {
+			long remaining = value;
+			while ((remaining & ~0x7FL) != 0) {
+				write((int) ((remaining & 0x7F) | 0x80));
+				remaining >>>= 7;
+			}
+			write((int) remaining);
+		}
+
+		public void writeString(String string) {
+			final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			writeVarLong(bytes.length);
+			write(bytes, 0, bytes.length);
+		}
+
+		/**
+		 * @return a view of the bytes written so far, without copying them.
+		 */
+		public ByteBuffer asBuffer() {
+			return ByteBuffer.wrap(buf, 0, count);
+		}
+	}
+}
@@ -1,60 +1,186 @@
 package io.github.oliviercailloux.archetypes_browser.formats;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.univocity.parsers.csv.CsvWriter;
 import com.univocity.parsers.csv.CsvWriterSettings;
 
 import io.github.oliviercailloux.archetypes_browser.ArtifactRelease;
 import io.github.oliviercailloux.archetypes_browser.ArtifactWithReleases;
 
+/**
+ * Writes releases, or artifacts with their releases summarized, one per row.
+ * The methods that take a {@link Writer} or a {@link Path} write each row as
+ * it is produced, so that the output never sits on the heap as a whole.
+ */
 public class CsvArtifacts {
-	public static String toCsv(Set<ArtifactRelease> releases) {
-		final StringWriter stringWriter = new StringWriter();
-		final CsvWriter writer = new CsvWriter(stringWriter, new CsvWriterSettings());
-		writer.writeHeaders("groupId", "artifactId", "version", "release date");
-		for (ArtifactRelease release : releases) {
+	private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.BASIC_ISO_DATE
+			.withZone(ZoneOffset.UTC);
+
+	private static final String[] GROUPED_HEADERS = { "groupId", "artifactId", "latest description",
+			"earliest release (real) date", "latest release (real) date" };
+
+	/**
+	 * Large enough that rendering a chunk outweighs scheduling it.
+	 */
+	private static final int CHUNK_SIZE = 512;
+
+	/**
+	 * Writes releases, one per row, to a destination that it closes when closed.
+	 * Not thread-safe.
+	 */
+	public static class ReleasesWriter implements AutoCloseable {
+		private final CsvWriter writer;
+
+		private ReleasesWriter(Writer destination) {
+			writer = new CsvWriter(destination, new CsvWriterSettings());
+			writer.writeHeaders("groupId", "artifactId", "version", "release date");
+		}
+
+		public void write(ArtifactRelease release) {
 			writer.addValue("groupId", release.getArtifact().getGroupId());
 			writer.addValue("artifactId", release.getArtifact().getArtifactId());
 			writer.addValue("version", release.getVersion());
-			writer.addValue("release date",
-					DateTimeFormatter.BASIC_ISO_DATE.format(release.getReleaseDate().atZone(ZoneOffset.UTC)));
+			writer.addValue("release date", format(release.getReleaseDate()));
 			writer.writeValuesToRow();
 		}
-		writer.close();
+
+		public void write(ArtifactWithReleases withReleases) {
+			withReleases.getReleases().forEach(this::write);
+		}
+
+		@Override
+		public void close() {
+			writer.close();
+		}
+	}
+
+	public static ReleasesWriter writer(Writer destination) {
+		return new ReleasesWriter(destination);
+	}
+
+	public static String toCsv(Set<ArtifactRelease> releases) {
+		final StringWriter stringWriter = new StringWriter();
+		toCsv(releases.iterator(), stringWriter);
 		return stringWriter.toString();
 	}
 
+	/**
+	 * Writes the given releases, then closes the destination.
+	 */
+	public static void toCsv(Iterator<ArtifactRelease> releases, Writer destination) {
+		try (ReleasesWriter writer = writer(destination)) {
+			releases.forEachRemaining(writer::write);
+		}
+	}
+
+	public static void toCsv(Stream<ArtifactRelease> releases, Path path) throws IOException {
+		try (BufferedWriter destination = Files.newBufferedWriter(path)) {
+			toCsv(releases.iterator(), destination);
+		}
+	}
+
 	public static String toCsvGrouped(Set<ArtifactWithReleases> artifacts) {
 		final StringWriter stringWriter = new StringWriter();
-		final CsvWriter writer = new CsvWriter(stringWriter, new CsvWriterSettings());
-		writer.writeHeaders("groupId", "artifactId", "latest description", "earliest release (real) date",
-				"latest release (real) date");
-		for (ArtifactWithReleases artifact : artifacts) {
-			if (artifact.getVersionsByRealDate().isEmpty()) {
-				continue;
+		toCsvGrouped(artifacts.iterator(), stringWriter);
+		return stringWriter.toString();
+	}
+
+	/**
+	 * Writes one row per artifact that has a release with a real date, then
+	 * closes the destination.
+	 */
+	public static void toCsvGrouped(Iterator<ArtifactWithReleases> artifacts, Writer destination) {
+		final CsvWriter writer = new CsvWriter(destination, new CsvWriterSettings());
+		writer.writeHeaders(GROUPED_HEADERS);
+		artifacts.forEachRemaining(a -> toGroupedRow(a).ifPresent(writer::writeRow));
+		writer.close();
+	}
+
+	public static void toCsvGrouped(Stream<ArtifactWithReleases> artifacts, Path path) throws IOException {
+		try (BufferedWriter destination = Files.newBufferedWriter(path)) {
+			toCsvGrouped(artifacts.iterator(), destination);
+		}
+	}
+
+	/**
+	 * Writes the same as {@link #toCsvGrouped(Iterator, Writer)}, byte for byte,
+	 * but renders the rows by chunks of artifacts on all cores, using the common
+	 * fork-join pool, then writes the chunks in order, and closes the
+	 * destination. The given set must have a defined iteration order (as
+	 * immutable and linked sets do).
+	 */
+	public static void toCsvGroupedParallel(Set<ArtifactWithReleases> artifacts, Writer destination)
+			throws IOException {
+		try (destination) {
+			destination.write(render(ImmutableList.of(), true));
+			final List<List<ArtifactWithReleases>> chunks = Lists.partition(ImmutableList.copyOf(artifacts),
+					CHUNK_SIZE);
+			try {
+				chunks.parallelStream().map(c -> render(c, false)).forEachOrdered(block -> {
+					try {
+						destination.write(block);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
 			}
-			writer.addValue("groupId", artifact.getArtifact().getGroupId());
-			writer.addValue("artifactId", artifact.getArtifact().getArtifactId());
-			final ImmutableSet<ArtifactRelease> latestReleases = artifact.getReleasesByDate().lastEntry().getValue();
-			final ImmutableSet<String> latestDescriptions = latestReleases.stream().map(ArtifactRelease::getDescription)
-					.collect(ImmutableSet.toImmutableSet());
-			final String latestDescription = latestDescriptions.size() == 1
-					? Iterables.getOnlyElement(latestDescriptions)
-					: latestDescriptions.toString();
-			writer.addValue("latest description", latestDescription);
-			writer.addValue("earliest release (real) date", DateTimeFormatter.BASIC_ISO_DATE
-					.format(artifact.getVersionsByRealDate().firstKey().atZone(ZoneOffset.UTC)));
-			writer.addValue("latest release (real) date", DateTimeFormatter.BASIC_ISO_DATE
-					.format(artifact.getVersionsByRealDate().lastKey().atZone(ZoneOffset.UTC)));
-			writer.writeValuesToRow();
 		}
+	}
+
+	public static void toCsvGroupedParallel(Set<ArtifactWithReleases> artifacts, Path path) throws IOException {
+		toCsvGroupedParallel(artifacts, Files.newBufferedWriter(path));
+	}
+
+	private static String render(List<ArtifactWithReleases> chunk, boolean headers) {
+		final StringWriter block = new StringWriter();
+		final CsvWriter writer = new CsvWriter(block, new CsvWriterSettings());
+		if (headers) {
+			writer.writeHeaders(GROUPED_HEADERS);
+		}
+		chunk.forEach(a -> toGroupedRow(a).ifPresent(writer::writeRow));
 		writer.close();
-		return stringWriter.toString();
+		return block.toString();
+	}
+
+	/**
+	 * @return empty iff the artifact has no release with a real date.
+	 */
+	private static Optional<Object[]> toGroupedRow(ArtifactWithReleases artifact) {
+		if (artifact.getVersionsByRealDate().isEmpty()) {
+			return Optional.empty();
+		}
+		final ImmutableSet<ArtifactRelease> latestReleases = artifact.getReleasesByDate().lastEntry().getValue();
+		final ImmutableSet<String> latestDescriptions = latestReleases.stream().map(ArtifactRelease::getDescription)
+				.collect(ImmutableSet.toImmutableSet());
+		final String latestDescription = latestDescriptions.size() == 1 ? Iterables.getOnlyElement(latestDescriptions)
+				: latestDescriptions.toString();
+		return Optional.of(new Object[] { artifact.getArtifact().getGroupId(), artifact.getArtifact().getArtifactId(),
+				latestDescription, format(artifact.getVersionsByRealDate().firstKey()),
+				format(artifact.getVersionsByRealDate().lastKey()) });
+	}
+
+	private static String format(Instant instant) {
+		return DATE_FORMATTER.format(instant);
 	}
 }
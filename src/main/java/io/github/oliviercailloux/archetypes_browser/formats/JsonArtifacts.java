@@ -1,16 +1,29 @@
 package io.github.oliviercailloux.archetypes_browser.formats;
 
+import static com.google.common.base.Verify.verify;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import javax.json.Json;
 import javax.json.JsonObject;
 import javax.json.JsonObjectBuilder;
 import javax.json.bind.adapter.JsonbAdapter;
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+import javax.json.stream.JsonParserFactory;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
 import io.github.oliviercailloux.archetypes_browser.Artifact;
@@ -20,20 +33,32 @@ import io.github.oliviercailloux.json.JsonbUtils;
 import io.github.oliviercailloux.json.PrintableJsonObject;
 
 public class JsonArtifacts {
+	private static final JsonGeneratorFactory GENERATORS = Json
+			.createGeneratorFactory(ImmutableMap.of(JsonGenerator.PRETTY_PRINTING, true));
+
+	private static final JsonParserFactory PARSERS = Json.createParserFactory(ImmutableMap.of());
+
+	/**
+	 * Reads and writes the artifact fields directly, rather than through a JSON-B
+	 * serialization of the artifact, which would cost a serialization and a
+	 * parsing per release.
+	 */
 	public static class ArtifactReleaseAdapter implements JsonbAdapter<ArtifactRelease, JsonObject> {
 		@Override
 		public JsonObject adaptToJson(ArtifactRelease artifactRelease) throws Exception {
-			final PrintableJsonObject obj = toJson(artifactRelease.getArtifact());
-			final JsonObjectBuilder builder = Json.createObjectBuilder(obj);
+			final Artifact artifact = artifactRelease.getArtifact();
+			final JsonObjectBuilder builder = Json.createObjectBuilder();
+			builder.add("groupId", artifact.getGroupId());
+			builder.add("artifactId", artifact.getArtifactId());
 			builder.add("version", artifactRelease.getVersion());
-			builder.add("description", artifactRelease.getDescription().toString());
+			builder.add("description", artifactRelease.getDescription());
 			builder.add("releaseDate", artifactRelease.getReleaseDate().toString());
 			return builder.build();
 		}
 
 		@Override
 		public ArtifactRelease adaptFromJson(JsonObject adapted) throws Exception {
-			final Artifact artifact = toArtifact(adapted.toString());
+			final Artifact artifact = Artifact.given(adapted.getString("groupId"), adapted.getString("artifactId"));
 			final String version = adapted.getString("version");
 			final String description = adapted.getString("description");
 			final Instant releaseDate = Instant.parse(adapted.getString("releaseDate"));
@@ -89,4 +114,123 @@ public class JsonArtifacts {
 				new ArtifactReleaseAdapter());
 		return ArtifactWithReleases.separated(releases);
 	}
+
+	/**
+	 * Writes artifacts with their releases to a stream as they come, in the format
+	 * of {@link JsonArtifacts#withReleasesToJson(Set)}, without holding the whole
+	 * document in memory. Closing this writer closes the stream.
+	 */
+	public static class ReleasesWriter implements AutoCloseable {
+		private final JsonGenerator generator;
+
+		private ReleasesWriter(OutputStream output) {
+			generator = GENERATORS.createGenerator(output, StandardCharsets.UTF_8);
+			generator.writeStartArray();
+		}
+
+		public void write(ArtifactWithReleases withReleases) {
+			for (ArtifactRelease release : withReleases.getReleases()) {
+				final Artifact artifact = release.getArtifact();
+				generator.writeStartObject();
+				generator.write("groupId", artifact.getGroupId());
+				generator.write("artifactId", artifact.getArtifactId());
+				generator.write("version", release.getVersion());
+				generator.write("description", release.getDescription());
+				generator.write("releaseDate", release.getReleaseDate().toString());
+				generator.writeEnd();
+			}
+		}
+
+		@Override
+		public void close() {
+			generator.writeEnd();
+			generator.close();
+		}
+	}
+
+	public static ReleasesWriter writer(OutputStream output) {
+		return new ReleasesWriter(output);
+	}
+
+	/**
+	 * Reads artifacts with their releases from a stream, in the format of
+	 * {@link #withReleasesToJson(Set)}, and gives each artifact to the given
+	 * consumer as soon as its releases are read. The releases of an artifact must
+	 * be contiguous, as they are when written by this class. The stream is closed.
+	 *
+	 * @return the number of artifacts read.
+	 */
+	public static int readWithReleases(InputStream input, Consumer<ArtifactWithReleases> consumer) {
+		final Set<Artifact> read = new HashSet<>();
+		final Set<ArtifactRelease> current = new LinkedHashSet<>();
+		try (JsonParser parser = PARSERS.createParser(input, StandardCharsets.UTF_8)) {
+			verify(parser.next() == Event.START_ARRAY);
+			Event event = parser.next();
+			while (event != Event.END_ARRAY) {
+				verify(event == Event.START_OBJECT, event.toString());
+				final ArtifactRelease release = readRelease(parser);
+				if (!current.isEmpty() && !current.iterator().next().getArtifact().equals(release.getArtifact())) {
+					consumer.accept(ArtifactWithReleases.given(current));
+					current.clear();
+				}
+				if (current.isEmpty()) {
+					verify(read.add(release.getArtifact()), "Releases of %s are not contiguous.",
+							release.getArtifact());
+				}
+				current.add(release);
+				event = parser.next();
+			}
+		}
+		if (!current.isEmpty()) {
+			consumer.accept(ArtifactWithReleases.given(current));
+		}
+		return read.size();
+	}
+
+	public static ImmutableSet<ArtifactWithReleases> withReleasesFromJson(InputStream input) {
+		final ImmutableSet.Builder<ArtifactWithReleases> builder = ImmutableSet.builder();
+		readWithReleases(input, builder::add);
+		return builder.build();
+	}
+
+	/**
+	 * Reads the release whose start has just been read, up to its end.
+	 */
+	private static ArtifactRelease readRelease(JsonParser parser) {
+		String groupId = null;
+		String artifactId = null;
+		String version = null;
+		String description = null;
+		String releaseDate = null;
+		Event event = parser.next();
+		while (event != Event.END_OBJECT) {
+			verify(event == Event.KEY_NAME, event.toString());
+			final String key = parser.getString();
+			verify(parser.next() == Event.VALUE_STRING, key);
+			final String value = parser.getString();
+			switch (key) {
+			case "groupId":
+				groupId = value;
+				break;
+			case "artifactId":
+				artifactId = value;
+				break;
+			case "version":
+				version = value;
+				break;
+			case "description":
+				description = value;
+				break;
+			case "releaseDate":
+				releaseDate = value;
+				break;
+			default:
+				break;
+			}
+			event = parser.next();
+		}
+		verify(releaseDate != null);
+		return ArtifactRelease.given(Artifact.given(groupId, artifactId), version, description,
+				Instant.parse(releaseDate));
+	}
 }
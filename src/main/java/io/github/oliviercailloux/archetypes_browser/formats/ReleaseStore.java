@@ -0,0 +1,93 @@
+package io.github.oliviercailloux.archetypes_browser.formats;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+
+import io.github.oliviercailloux.archetypes_browser.Artifact;
+import io.github.oliviercailloux.archetypes_browser.ArtifactWithReleases;
+
+/**
+ * A read-only view of a snapshot written by {@link BinaryArtifacts}, backed by
+ * the snapshot mapped in memory. Opening a store decodes nothing: an artifact
+ * and its releases are decoded each time they are accessed, and are not
+ * retained by the store, which only keeps the strings (identifiers and
+ * descriptions) it has decoded so far. Processes that open the same snapshot
+ * thus share its pages instead of each holding a copy of the data in its heap.
+ * <p>
+ * Iterates in the order of the snapshot. Safe for use by concurrent threads.
+ */
+public class ReleaseStore extends AbstractSet<ArtifactWithReleases> {
+	public static ReleaseStore open(Path snapshot) throws IOException {
+		return new ReleaseStore(BinaryArtifacts.map(snapshot));
+	}
+
+	private final ByteBuffer buffer;
+	private final int stringCount;
+	private final int artifactCount;
+	private final int indexOffset;
+	private final AtomicReferenceArray<String> strings;
+
+	private ReleaseStore(ByteBuffer buffer) {
+		this.buffer = buffer;
+		final int footerOffset = buffer.limit() - BinaryArtifacts.FOOTER_BYTES;
+		stringCount = buffer.getInt(footerOffset);
+		artifactCount = buffer.getInt(footerOffset + Integer.BYTES);
+		indexOffset = buffer.getInt(footerOffset + 2 * Integer.BYTES);
+		strings = new AtomicReferenceArray<>(stringCount);
+	}
+
+	@Override
+	public int size() {
+		return artifactCount;
+	}
+
+	@Override
+	public Iterator<ArtifactWithReleases> iterator() {
+		return IntStream.range(0, artifactCount).mapToObj(this::get).iterator();
+	}
+
+	/**
+	 * Decodes the given artifact, but not its releases.
+	 */
+	public Artifact getArtifact(int index) {
+		return BinaryArtifacts.readArtifact(at(index), this::getString);
+	}
+
+	/**
+	 * Decodes the given artifact with its releases.
+	 */
+	public ArtifactWithReleases get(int index) {
+		return BinaryArtifacts.readWithReleases(at(index), this::getString);
+	}
+
+	/**
+	 * @return a buffer of its own, positioned at the given artifact.
+	 */
+	private ByteBuffer at(int index) {
+		checkElementIndex(index, artifactCount);
+		final ByteBuffer view = buffer.duplicate();
+		view.position(buffer.getInt(indexOffset + (stringCount + index) * Integer.BYTES));
+		return view;
+	}
+
+	private String getString(int index) {
+		checkElementIndex(index, stringCount);
+		final String known = strings.get(index);
+		if (known != null) {
+			return known;
+		}
+		final ByteBuffer view = buffer.duplicate();
+		view.position(buffer.getInt(indexOffset + index * Integer.BYTES));
+		final String string = BinaryArtifacts.readString(view);
+		/** Decoding a string twice is harmless, it is just wasted work. */
+		strings.compareAndSet(index, null, string);
+		return strings.get(index);
+	}
+}
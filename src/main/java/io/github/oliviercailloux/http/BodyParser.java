@@ -0,0 +1,15 @@
+package io.github.oliviercailloux.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the body of a response into some content.
+ */
+@FunctionalInterface
+public interface BodyParser<T> {
+	/**
+	 * Need not read the body to its end.
+	 */
+	T parse(InputStream body) throws IOException;
+}
@@ -1,13 +1,15 @@
 package io.github.oliviercailloux.http;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
 import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
-import java.util.Locale;
 import java.util.Optional;
 
 import javax.ws.rs.client.Invocation;
@@ -17,51 +19,114 @@ import javax.ws.rs.core.Response;
 
 import com.google.common.base.Verify;
 
-public class Downloader {
-	private static final DateTimeFormatter FORMATTER = DateTimeFormatter.RFC_1123_DATE_TIME.localizedBy(Locale.ENGLISH);
+import io.github.oliviercailloux.metrics.Metrics;
 
-	/** Should be generalized, but ATM I use it only for one purpose. */
-	private static final Path FILE_PATH = Path.of("archetype-catalog.xml");
+/**
+ * Downloads a single resource to a file, if it has been modified since the
+ * last download. See {@link HttpCache} for keeping many resources.
+ */
+public class Downloader {
+	public static final Path CATALOG_PATH = Path.of("archetype-catalog.xml");
 
-	private static final Path LAST_MODIFIED_PATH = Path.of("archetype-catalog.last-modified.txt");
+	private static final Path CATALOG_LAST_MODIFIED_PATH = Path.of("archetype-catalog.last-modified.txt");
 
 	public static Downloader discarding() {
-		return new Downloader(true);
+		return new Downloader(true, CATALOG_PATH, CATALOG_LAST_MODIFIED_PATH, RequestScheduler.direct(1),
+				Metrics.create());
 	}
 
+	/**
+	 * Returns a downloader that saves the archetype catalog.
+	 */
 	public static Downloader saving() {
-		return new Downloader(false);
+		return saving(CATALOG_PATH, CATALOG_LAST_MODIFIED_PATH);
+	}
+
+	/**
+	 * @param filePath         where to save the resource.
+	 * @param lastModifiedPath where to save the last modification date of the
+	 *                         resource, for use by the next download.
+	 */
+	public static Downloader saving(Path filePath, Path lastModifiedPath) {
+		return new Downloader(false, filePath, lastModifiedPath, RequestScheduler.direct(1), Metrics.create());
+	}
+
+	/**
+	 * Returns a downloader like this one, that sends its requests through the
+	 * given scheduler, under the endpoint “download”.
+	 */
+	public Downloader using(RequestScheduler scheduler) {
+		return new Downloader(discard, filePath, lastModifiedPath, scheduler, metrics);
+	}
+
+	/**
+	 * Returns a downloader like this one, that times its downloads, and counts the
+	 * bytes they transfer, in the given metrics, under the phase “download”.
+	 */
+	public Downloader measuredBy(Metrics metrics) {
+		return new Downloader(discard, filePath, lastModifiedPath, scheduler, metrics);
 	}
 
 	private Optional<Instant> lastModified;
 	private boolean modified;
 	private boolean discard;
+	private final Path filePath;
+	private final Path lastModifiedPath;
+	private final RequestScheduler scheduler;
+	private final Metrics metrics;
 
-	private Downloader(boolean discard) {
+	private Downloader(boolean discard, Path filePath, Path lastModifiedPath, RequestScheduler scheduler,
+			Metrics metrics) {
 		lastModified = Optional.empty();
 		modified = false;
 		this.discard = discard;
+		this.filePath = filePath;
+		this.lastModifiedPath = lastModifiedPath;
+		this.scheduler = checkNotNull(scheduler);
+		this.metrics = checkNotNull(metrics);
 	}
 
 	public boolean download(WebTarget target, Instant ifModifiedSince) throws IOException {
+		try {
+			return scheduler.call("download", target.getUri(), attempt -> {
+				final Metrics.Timing timing = metrics.start("download");
+				try {
+					return downloadOnce(target, ifModifiedSince, attempt, timing);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				} finally {
+					timing.close();
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	private boolean downloadOnce(WebTarget target, Instant ifModifiedSince, RequestScheduler.Attempt attempt,
+			Metrics.Timing timing) throws IOException {
 		final Invocation.Builder request = target.request(MediaType.TEXT_PLAIN).header("if-modified-since",
-				FORMATTER.format(ifModifiedSince.atZone(ZoneOffset.UTC)));
+				Validator.FORMATTER.format(ifModifiedSince.atZone(ZoneOffset.UTC)));
 		try (Response response = request.get()) {
+			attempt.responded();
+			RequestScheduler.checkTransient(response);
 			Verify.verify(response.getStatus() == Response.Status.OK.getStatusCode()
 					|| response.getStatus() == Response.Status.NOT_MODIFIED.getStatusCode());
 			modified = (response.getStatus() == Response.Status.OK.getStatusCode());
 			final String lastModifiedStr = response.getHeaderString("last-modified");
-			lastModified = Optional.ofNullable(lastModifiedStr).map((r) -> FORMATTER.parse(r, Instant::from));
+			lastModified = Optional.ofNullable(lastModifiedStr)
+					.map((r) -> Validator.FORMATTER.parse(r, Instant::from));
 			if (modified) {
 				Verify.verify(lastModified.isPresent() && !lastModified.get().isBefore(ifModifiedSince));
 			} else {
 				Verify.verify(!lastModified.isPresent() || !lastModified.get().isAfter(ifModifiedSince));
 			}
 			if (!discard && modified) {
-				try (InputStream responseStream = response.readEntity(InputStream.class)) {
-					responseStream.transferTo(Files.newOutputStream(FILE_PATH));
+				try (InputStream responseStream = response.readEntity(InputStream.class);
+						OutputStream fileStream = Files.newOutputStream(filePath)) {
+					timing.addBytes(responseStream.transferTo(fileStream));
 				}
-				Files.writeString(LAST_MODIFIED_PATH, lastModified.get().toString());
+				Files.writeString(lastModifiedPath, lastModified.get().toString());
 			}
 		}
 		return modified;
@@ -75,8 +140,8 @@ public class Downloader {
 
 	public boolean readAndDownload(WebTarget target) throws IOException {
 		final Instant ifModifiedSince;
-		if (Files.exists(LAST_MODIFIED_PATH)) {
-			final String ifModifiedSinceStr = Files.readString(LAST_MODIFIED_PATH);
+		if (Files.exists(lastModifiedPath)) {
+			final String ifModifiedSinceStr = Files.readString(lastModifiedPath);
 			ifModifiedSince = Instant.parse(ifModifiedSinceStr);
 		} else {
 			ifModifiedSince = Instant.EPOCH;
@@ -0,0 +1,56 @@
+package io.github.oliviercailloux.http;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.Optional;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * The outcome of a (possibly conditional) GET request: either some content
+ * read from the response, or the information that the resource does not exist
+ * or has not been modified.
+ */
+public class Fetched<T> {
+	public static enum Status {
+		OK, NOT_MODIFIED, NOT_FOUND
+	}
+
+	public static <T> Fetched<T> ok(T content) {
+		return new Fetched<>(Status.OK, Optional.of(content));
+	}
+
+	public static <T> Fetched<T> notModified() {
+		return new Fetched<>(Status.NOT_MODIFIED, Optional.empty());
+	}
+
+	public static <T> Fetched<T> notFound() {
+		return new Fetched<>(Status.NOT_FOUND, Optional.empty());
+	}
+
+	private final Status status;
+	private final Optional<T> content;
+
+	private Fetched(Status status, Optional<T> content) {
+		this.status = checkNotNull(status);
+		this.content = checkNotNull(content);
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * @throws IllegalStateException iff the status is not {@link Status#OK}.
+	 */
+	public T getContent() {
+		checkState(status == Status.OK);
+		return content.get();
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this).add("status", status).add("content", content).toString();
+	}
+}
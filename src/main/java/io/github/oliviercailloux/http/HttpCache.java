@@ -0,0 +1,259 @@
+package io.github.oliviercailloux.http;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+
+/**
+ * An on-disk cache of HTTP resources, keyed by URI. Each entry holds the body
+ * of a resource together with the validator that the server sent with it, so
+ * that the entry can be revalidated by a conditional request and served from
+ * disk when the server answers 304 (Not Modified).
+ * <p>
+ * An entry is stored in two files named after the SHA-256 hash of its URI: the
+ * body, and a small JSON file holding the URI and the validator. The last
+ * modification time of the body file records when the entry was last used;
+ * {@link #evict()} removes the entries unused for longer than the maximal age,
+ * then the least recently used ones until the cache fits its maximal size.
+ * <p>
+ * Safe for use by concurrent threads.
+ */
+public class HttpCache {
+	private static final Logger LOGGER = LoggerFactory.getLogger(HttpCache.class);
+
+	public static final Path DEFAULT_DIRECTORY = Path.of("cache");
+
+	/**
+	 * @param maxBytes the size of the bodies the cache may hold after eviction.
+	 * @param maxAge   the duration after which an entry that has not been used is
+	 *                 evicted.
+	 */
+	public static HttpCache at(Path directory, long maxBytes, Duration maxAge) throws IOException {
+		Files.createDirectories(directory);
+		return new HttpCache(directory, maxBytes, maxAge);
+	}
+
+	private final Path directory;
+	private final long maxBytes;
+	private final Duration maxAge;
+	private final AtomicLong hits;
+	private final AtomicLong misses;
+	private final AtomicLong bytesSaved;
+
+	private HttpCache(Path directory, long maxBytes, Duration maxAge) {
+		this.directory = checkNotNull(directory);
+		checkArgument(maxBytes >= 0);
+		this.maxBytes = maxBytes;
+		this.maxAge = checkNotNull(maxAge);
+		hits = new AtomicLong();
+		misses = new AtomicLong();
+		bytesSaved = new AtomicLong();
+	}
+
+	/**
+	 * @return the validator of the cached entry for the given URI, or an empty
+	 *         optional if there is no such entry.
+	 */
+	public Optional<Validator> getValidator(URI uri) {
+		final Path validatorPath = getValidatorPath(uri);
+		final JsonObject json;
+		try (BufferedReader reader = Files.newBufferedReader(validatorPath);
+				JsonReader jsonReader = Json.createReader(reader)) {
+			json = jsonReader.readObject();
+		} catch (NoSuchFileException e) {
+			return Optional.empty();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		/** Guards against the (very unlikely) collision of hashes. */
+		if (!json.getString("uri").equals(uri.toString())) {
+			return Optional.empty();
+		}
+		return Optional.of(Validator.fromJson(json.getJsonObject("validator")));
+	}
+
+	/**
+	 * Reads the body of the cached entry for the given URI, provided that the
+	 * entry still has the given validator, and counts a hit.
+	 *
+	 * @return an empty optional if there is no such entry.
+	 */
+	public Optional<byte[]> read(URI uri, Validator validator) {
+		if (!getValidator(uri).equals(Optional.of(validator))) {
+			return Optional.empty();
+		}
+		final Path bodyPath = getBodyPath(uri);
+		final byte[] body;
+		try {
+			body = Files.readAllBytes(bodyPath);
+			Files.setLastModifiedTime(bodyPath, FileTime.from(Instant.now()));
+		} catch (NoSuchFileException e) {
+			return Optional.empty();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		hits.incrementAndGet();
+		bytesSaved.addAndGet(body.length);
+		return Optional.of(body);
+	}
+
+	/**
+	 * Stores a body that was just transferred, and counts a miss. Stores nothing,
+	 * and removes any previous entry, if the server sent no validator, as such an
+	 * entry could never be revalidated.
+	 */
+	public void write(URI uri, Optional<Validator> validator, byte[] body) {
+		misses.incrementAndGet();
+		try {
+			if (validator.isEmpty()) {
+				Files.deleteIfExists(getValidatorPath(uri));
+				Files.deleteIfExists(getBodyPath(uri));
+				return;
+			}
+			final String validatorJson = Json.createObjectBuilder().add("uri", uri.toString())
+					.add("validator", validator.get().asJson()).build().toString();
+			/**
+			 * The body is written first, so that a validator never designates a body that
+			 * it does not match.
+			 */
+			Files.deleteIfExists(getValidatorPath(uri));
+			writeAtomically(getBodyPath(uri), body);
+			writeAtomically(getValidatorPath(uri), validatorJson.getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void writeAtomically(Path target, byte[] content) throws IOException {
+		final Path temp = Files.createTempFile(directory, "entry", ".tmp");
+		try {
+			Files.write(temp, content);
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			/** Left only if the move failed. */
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Removes the entries that have not been used for longer than the maximal
+	 * age, then the least recently used ones until the bodies in the cache weigh
+	 * at most the maximal size.
+	 *
+	 * @return the number of entries removed.
+	 */
+	public int evict() throws IOException {
+		final ImmutableList<Path> bodies;
+		try (Stream<Path> files = Files.list(directory)) {
+			bodies = files.filter(p -> p.getFileName().toString().endsWith(".body"))
+					.collect(ImmutableList.toImmutableList());
+		}
+		final Instant oldest = Instant.now().minus(maxAge);
+		final ImmutableList.Builder<Path> keptBuilder = ImmutableList.builder();
+		long size = 0;
+		int removed = 0;
+		for (Path body : bodies) {
+			if (Files.getLastModifiedTime(body).toInstant().isBefore(oldest)) {
+				remove(body);
+				++removed;
+			} else {
+				keptBuilder.add(body);
+				size += Files.size(body);
+			}
+		}
+		final ImmutableList<Path> kept = ImmutableList.sortedCopyOf(
+				Comparator.comparing((Path p) -> getLastModifiedTimeUnchecked(p)), keptBuilder.build());
+		for (Path body : kept) {
+			if (size <= maxBytes) {
+				break;
+			}
+			size -= Files.size(body);
+			remove(body);
+			++removed;
+		}
+		LOGGER.info("Evicted {} entries, kept {} bytes.", removed, size);
+		return removed;
+	}
+
+	private static FileTime getLastModifiedTimeUnchecked(Path path) {
+		try {
+			return Files.getLastModifiedTime(path);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void remove(Path body) throws IOException {
+		final String name = body.getFileName().toString();
+		final String hash = name.substring(0, name.length() - ".body".length());
+		Files.deleteIfExists(directory.resolve(hash + ".json"));
+		Files.deleteIfExists(body);
+	}
+
+	private Path getBodyPath(URI uri) {
+		return directory.resolve(hash(uri) + ".body");
+	}
+
+	private Path getValidatorPath(URI uri) {
+		return directory.resolve(hash(uri) + ".json");
+	}
+
+	private static String hash(URI uri) {
+		return Hashing.sha256().hashString(uri.toString(), StandardCharsets.UTF_8).toString();
+	}
+
+	/**
+	 * @return the number of bodies served from the cache.
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return the number of bodies that had to be transferred.
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * @return the number of bytes of bodies served from the cache instead of
+	 *         being transferred.
+	 */
+	public long getBytesSaved() {
+		return bytesSaved.get();
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this).add("directory", directory).add("hits", hits).add("misses", misses)
+				.add("bytesSaved", bytesSaved).toString();
+	}
+}
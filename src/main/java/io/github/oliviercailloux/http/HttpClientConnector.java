@@ -0,0 +1,293 @@
+package io.github.oliviercailloux.http;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.Response;
+
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.spi.AsyncConnectorCallback;
+import org.glassfish.jersey.client.spi.Connector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * A Jersey connector that sends the requests through the HTTP client of the
+ * JDK, which speaks HTTP/2 with the servers that accept it: all the requests
+ * towards such a server are then multiplexed over a single connection, instead
+ * of each waiting for a connection of a pool. Falls back to HTTP/1.1 with the
+ * other servers.
+ * <p>
+ * The body of a response is streamed, as with the other connectors. The read
+ * timeout bounds the wait for the headers of the response, then each wait for
+ * bytes of its body, as a socket timeout would with the other connectors.
+ * Requests with an entity are not supported, as the crawls send none.
+ */
+class HttpClientConnector implements Connector {
+	@SuppressWarnings("unused")
+	private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientConnector.class);
+
+	/**
+	 * The headers that the JDK client sets itself, and refuses to be given.
+	 */
+	private static final ImmutableSet<String> RESTRICTED_HEADERS = ImmutableSet.of("connection", "content-length",
+			"expect", "host", "upgrade");
+
+	public static HttpClientConnector given(HttpClient client, Duration readTimeout) {
+		return new HttpClientConnector(client, readTimeout);
+	}
+
+	private final HttpClient client;
+	private final Duration readTimeout;
+
+	private HttpClientConnector(HttpClient client, Duration readTimeout) {
+		this.client = checkNotNull(client);
+		this.readTimeout = checkNotNull(readTimeout);
+	}
+
+	@Override
+	public ClientResponse apply(ClientRequest request) {
+		checkArgument(!request.hasEntity(), "Requests with an entity are not supported.");
+		final HttpRequest.Builder builder = HttpRequest.newBuilder(request.getUri()).timeout(readTimeout)
+				.method(request.getMethod(), HttpRequest.BodyPublishers.noBody());
+		for (Map.Entry<String, List<String>> header : request.getStringHeaders().entrySet()) {
+			if (!RESTRICTED_HEADERS.contains(header.getKey().toLowerCase())) {
+				header.getValue().forEach(v -> builder.header(header.getKey(), v));
+			}
+		}
+
+		final HttpResponse<Flow.Publisher<List<ByteBuffer>>> httpResponse;
+		try {
+			httpResponse = client.send(builder.build(), HttpResponse.BodyHandlers.ofPublisher());
+		} catch (IOException e) {
+			throw new ProcessingException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ProcessingException(e);
+		}
+
+		final ClientResponse response = new ClientResponse(getStatus(httpResponse.statusCode()), request);
+		response.setResolvedRequestUri(httpResponse.uri());
+		httpResponse.headers().map().forEach(response.getHeaders()::addAll);
+		final TimedBodyStream body = new TimedBodyStream(readTimeout);
+		httpResponse.body().subscribe(body);
+		response.setEntityStream(body);
+		return response;
+	}
+
+	/**
+	 * The body of a response, as a stream whose reads fail if no bytes arrive
+	 * within the given timeout. The JDK client only bounds the wait for the
+	 * headers, so that a body that stalls would otherwise block its reader
+	 * forever.
+	 */
+	private static class TimedBodyStream extends InputStream implements Flow.Subscriber<List<ByteBuffer>> {
+		/**
+		 * Marks the end of the body, or its failure; a distinct instance, compared
+		 * by identity.
+		 */
+		private static final List<ByteBuffer> END = new ArrayList<>(0);
+
+		private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+		private final Duration timeout;
+		/** Holds at most one list of buffers, then possibly {@link #END}. */
+		private final BlockingQueue<List<ByteBuffer>> received;
+		private volatile Flow.Subscription subscription;
+		private volatile Throwable failure;
+		private volatile boolean closed;
+		private Iterator<ByteBuffer> buffers;
+		private ByteBuffer current;
+		private boolean ended;
+
+		private TimedBodyStream(Duration timeout) {
+			this.timeout = checkNotNull(timeout);
+			received = new LinkedBlockingQueue<>();
+			failure = null;
+			closed = false;
+			buffers = Collections.emptyIterator();
+			current = EMPTY;
+			ended = false;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription s) {
+			subscription = s;
+			if (closed) {
+				s.cancel();
+			} else {
+				s.request(1);
+			}
+		}
+
+		@Override
+		public void onNext(List<ByteBuffer> item) {
+			received.add(item);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			failure = throwable;
+			received.add(END);
+		}
+
+		@Override
+		public void onComplete() {
+			received.add(END);
+		}
+
+		@Override
+		public int read() throws IOException {
+			final ByteBuffer buffer = next();
+			return buffer == null ? -1 : Byte.toUnsignedInt(buffer.get());
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			Objects.checkFromIndexSize(off, len, b.length);
+			if (len == 0) {
+				return 0;
+			}
+			final ByteBuffer buffer = next();
+			if (buffer == null) {
+				return -1;
+			}
+			final int count = Math.min(len, buffer.remaining());
+			buffer.get(b, off, count);
+			return count;
+		}
+
+		/**
+		 * @return a buffer with some bytes remaining, or {@code null} at the end of
+		 *         the body.
+		 */
+		private ByteBuffer next() throws IOException {
+			if (closed) {
+				throw new IOException("Closed.");
+			}
+			while (!current.hasRemaining()) {
+				if (buffers.hasNext()) {
+					current = buffers.next();
+					continue;
+				}
+				if (ended) {
+					return null;
+				}
+				final List<ByteBuffer> list;
+				try {
+					list = received.poll(timeout.toNanos(), TimeUnit.NANOSECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					close();
+					throw new InterruptedIOException();
+				}
+				if (list == null) {
+					close();
+					throw new SocketTimeoutException("No bytes received within " + timeout + ".");
+				}
+				if (list == END) {
+					ended = true;
+					if (failure != null) {
+						throw new IOException(failure);
+					}
+					return null;
+				}
+				buffers = list.iterator();
+				subscription.request(1);
+			}
+			return current;
+		}
+
+		/**
+		 * Cancels the rest of the transfer, if any.
+		 */
+		@Override
+		public void close() {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			final Flow.Subscription s = subscription;
+			if (s != null) {
+				s.cancel();
+			}
+		}
+	}
+
+	private static Response.StatusType getStatus(int code) {
+		final Response.Status known = Response.Status.fromStatusCode(code);
+		if (known != null) {
+			return known;
+		}
+		return new Response.StatusType() {
+			@Override
+			public int getStatusCode() {
+				return code;
+			}
+
+			@Override
+			public Response.Status.Family getFamily() {
+				return Response.Status.Family.familyOf(code);
+			}
+
+			@Override
+			public String getReasonPhrase() {
+				return "";
+			}
+		};
+	}
+
+	@Override
+	public Future<?> apply(ClientRequest request, AsyncConnectorCallback callback) {
+		return CompletableFuture.runAsync(() -> {
+			final ClientResponse response;
+			try {
+				response = apply(request);
+			} catch (ProcessingException e) {
+				callback.failure(e);
+				return;
+			}
+			callback.response(response);
+		});
+	}
+
+	@Override
+	public String getName() {
+		return "JDK HttpClient " + client.version();
+	}
+
+	/**
+	 * Does nothing: the JDK client has no close method, its connections are
+	 * closed when idle for a while, or when it is garbage collected.
+	 */
+	@Override
+	public void close() {
+		/** Nothing to release. */
+	}
+}
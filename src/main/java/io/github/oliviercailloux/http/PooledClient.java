@@ -0,0 +1,129 @@
+package io.github.oliviercailloux.http;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.WebTarget;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.filter.EncodingFilter;
+import org.glassfish.jersey.message.DeflateEncoder;
+import org.glassfish.jersey.message.GZipEncoder;
+
+/**
+ * A JAX-RS client meant to be shared by all the requests of a crawl: its
+ * connections are kept alive and pooled, instead of each request paying for a
+ * new connection (and TLS handshake). Must be closed to release the pool.
+ * <p>
+ * A client may also ask for compressed responses: it then sends an
+ * Accept-Encoding header offering gzip and deflate, and decompresses the bodies
+ * that the server chose to compress as they are read, so that they are still
+ * parsed as they arrive. Compression is transparent to the callers, including
+ * to conditional requests, whose validators are those of the resource, not of
+ * its encoding; but the bytes they read are the decompressed ones. Requests for
+ * a range of bytes should not be sent by such a client, as the range would be
+ * one of the compressed body. A client that does not ask for compressed
+ * responses sends no Accept-Encoding header at all, although the Apache client
+ * would by default.
+ */
+public class PooledClient implements AutoCloseable {
+	public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+
+	public static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(60);
+
+	public static PooledClient withDefaults() {
+		return given(20, 20, DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT);
+	}
+
+	/**
+	 * @param maxConnections the maximal number of connections open at any given
+	 *                       time, in total.
+	 * @param maxPerHost     the maximal number of connections open at any given
+	 *                       time towards a single host.
+	 */
+	public static PooledClient given(int maxConnections, int maxPerHost, Duration connectTimeout,
+			Duration readTimeout) {
+		return new PooledClient(pooling(maxConnections, maxPerHost), connectTimeout, readTimeout);
+	}
+
+	/**
+	 * As {@link #given(int, int, Duration, Duration)}, but asking for compressed
+	 * responses.
+	 */
+	public static PooledClient compressed(int maxConnections, int maxPerHost, Duration connectTimeout,
+			Duration readTimeout) {
+		return new PooledClient(compressing(pooling(maxConnections, maxPerHost)), connectTimeout, readTimeout);
+	}
+
+	/**
+	 * Returns a client that asks for compressed responses, and sends its requests
+	 * through the HTTP client of the JDK, which multiplexes them over a single
+	 * HTTP/2 connection per host when the host accepts it (see
+	 * {@link HttpClientConnector}). There is no pool to size: the number of
+	 * requests in flight is bounded only by the caller, for example by a
+	 * {@link RequestScheduler}.
+	 */
+	public static PooledClient multiplexed(Duration connectTimeout, Duration readTimeout) {
+		final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2)
+				.followRedirects(HttpClient.Redirect.NORMAL).connectTimeout(connectTimeout).build();
+		final ClientConfig config = new ClientConfig();
+		config.connectorProvider((c, runtimeConfig) -> HttpClientConnector.given(httpClient, readTimeout));
+		return new PooledClient(compressing(config), connectTimeout, readTimeout);
+	}
+
+	private static ClientConfig pooling(int maxConnections, int maxPerHost) {
+		checkArgument(maxConnections >= 1);
+		checkArgument(maxPerHost >= 1);
+		final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setMaxTotal(maxConnections);
+		connectionManager.setDefaultMaxPerRoute(maxPerHost);
+		final ClientConfig config = new ClientConfig();
+		config.property(ApacheClientProperties.CONNECTION_MANAGER, connectionManager);
+		/**
+		 * The Apache client would otherwise ask for gzip and deflate itself, and
+		 * decompress the bodies behind the back of Jersey.
+		 */
+		config.property(ApacheClientProperties.REQUEST_CONFIG,
+				RequestConfig.custom().setContentCompressionEnabled(false).build());
+		config.connectorProvider(new ApacheConnectorProvider());
+		return config;
+	}
+
+	private static ClientConfig compressing(ClientConfig config) {
+		return config.register(EncodingFilter.class).register(GZipEncoder.class).register(DeflateEncoder.class);
+	}
+
+	private final Client client;
+
+	private PooledClient(ClientConfig config, Duration connectTimeout, Duration readTimeout) {
+		client = ClientBuilder.newBuilder().withConfig(config)
+				.connectTimeout(connectTimeout.toMillis(), TimeUnit.MILLISECONDS)
+				.readTimeout(readTimeout.toMillis(), TimeUnit.MILLISECONDS).build();
+	}
+
+	public Client getClient() {
+		return client;
+	}
+
+	public WebTarget target(URI uri) {
+		return client.target(uri);
+	}
+
+	/**
+	 * Closes the client, which closes its pooled connections.
+	 */
+	@Override
+	public void close() {
+		client.close();
+	}
+}
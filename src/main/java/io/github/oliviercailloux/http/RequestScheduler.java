@@ -0,0 +1,505 @@
+package io.github.oliviercailloux.http;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.Response;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Schedules the requests towards repositories, host by host: it spaces them so
+ * as to respect a rate limit, bounds the number in flight, and retries those
+ * that fail transiently.
+ * <p>
+ * The rate limit is a token bucket that holds up to one second worth of
+ * requests. The number of requests in flight is adapted to the host: it
+ * starts at the given maximum, is halved when the host throttles (429, 503) or
+ * fails to answer, is slightly decreased when a response is much slower than
+ * usual for its endpoint, and otherwise grows back additively, by one per
+ * window of requests. The latency of a request is measured up to its response,
+ * if the request tells when it arrived (see {@link Attempt}), so that reading
+ * and parsing large bodies is not mistaken for congestion. A request that
+ * fails with a 429 or 5xx status (see {@link #checkTransient(Response)}) or
+ * with an I/O error is retried after a jittered exponential backoff, or after
+ * the delay the server asked for in a Retry-After header, if longer.
+ * <p>
+ * Counts attempts, retries, failures and latencies by endpoint, an endpoint
+ * being any label the caller sees fit, such as the kind of resource requested.
+ * Safe for use by concurrent threads.
+ */
+public class RequestScheduler {
+	@SuppressWarnings("unused")
+	private static final Logger LOGGER = LoggerFactory.getLogger(RequestScheduler.class);
+
+	public static final double DEFAULT_REQUESTS_PER_SECOND = 100d;
+
+	public static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+	public static final Duration DEFAULT_BACKOFF = Duration.ofMillis(500);
+
+	/**
+	 * Longer waits, whether from backoff or asked for by the server, are cut to
+	 * this.
+	 */
+	private static final Duration MAX_WAIT = Duration.ofMinutes(5);
+
+	/**
+	 * A response slower than this many times the smoothed latency of its endpoint
+	 * on its host is taken as a sign of congestion.
+	 */
+	private static final int LATENCY_TOLERANCE = 4;
+
+	/**
+	 * The weight of the latest latency in the smoothed latency of an endpoint.
+	 */
+	private static final double SMOOTHING = 0.2d;
+
+	/**
+	 * Requests without rate limit nor retries, bounded only by the given number
+	 * in flight per host.
+	 */
+	public static RequestScheduler direct(int maxPerHost) {
+		return new RequestScheduler(Double.POSITIVE_INFINITY, maxPerHost, 1, Duration.ZERO);
+	}
+
+	/**
+	 * With the default rate, number of attempts and backoff.
+	 */
+	public static RequestScheduler polite(int maxPerHost) {
+		return new RequestScheduler(DEFAULT_REQUESTS_PER_SECOND, maxPerHost, DEFAULT_MAX_ATTEMPTS, DEFAULT_BACKOFF);
+	}
+
+	/**
+	 * @param requestsPerSecond per host, possibly infinite.
+	 * @param maxPerHost        the maximal number of requests in flight towards a
+	 *                          single host.
+	 * @param maxAttempts       the maximal number of times a request is sent,
+	 *                          including the first one.
+	 * @param backoff           the base delay before a retry, doubled for each
+	 *                          further retry.
+	 */
+	public static RequestScheduler given(double requestsPerSecond, int maxPerHost, int maxAttempts,
+			Duration backoff) {
+		return new RequestScheduler(requestsPerSecond, maxPerHost, maxAttempts, backoff);
+	}
+
+	/**
+	 * Thrown by a request that received a response that is worth retrying.
+	 */
+	public static class TransientStatusException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		private final int status;
+		private final Optional<Duration> retryAfter;
+
+		public TransientStatusException(int status, Optional<Duration> retryAfter) {
+			super("Status " + status);
+			this.status = status;
+			this.retryAfter = checkNotNull(retryAfter);
+		}
+
+		public int getStatus() {
+			return status;
+		}
+
+		public Optional<Duration> getRetryAfter() {
+			return retryAfter;
+		}
+	}
+
+	/**
+	 * @throws TransientStatusException iff the response has a 429 or 5xx status.
+	 */
+	public static void checkTransient(Response response) {
+		final int status = response.getStatus();
+		if (status == 429 || status >= 500) {
+			throw new TransientStatusException(status,
+					Optional.ofNullable(response.getHeaderString("retry-after")).flatMap(RequestScheduler::parseDelay));
+		}
+	}
+
+	/**
+	 * @param retryAfter a number of seconds or a date.
+	 */
+	static Optional<Duration> parseDelay(String retryAfter) {
+		final String trimmed = retryAfter.trim();
+		try {
+			if (trimmed.chars().allMatch(Character::isDigit)) {
+				return Optional.of(Duration.ofSeconds(Long.parseLong(trimmed)));
+			}
+			final Duration delay = Duration.between(Instant.now(), Validator.FORMATTER.parse(trimmed, Instant::from));
+			return Optional.of(delay.isNegative() ? Duration.ZERO : delay);
+		} catch (RuntimeException e) {
+			LOGGER.debug("Ignoring Retry-After: {}.", retryAfter);
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * An attempt at sending a request, which the request may tell when the
+	 * response arrived.
+	 */
+	public static class Attempt {
+		private final long start;
+		private long latency;
+
+		private Attempt() {
+			start = System.nanoTime();
+			latency = -1;
+		}
+
+		/**
+		 * Marks the arrival of the response (its status and headers): the time spent
+		 * afterwards, reading the body, does not count in the latency. Only the first
+		 * call counts.
+		 */
+		public void responded() {
+			if (latency < 0) {
+				latency = System.nanoTime() - start;
+			}
+		}
+
+		/**
+		 * @return the time until the response arrived or, if it has not been told,
+		 *         until now.
+		 */
+		private long getLatency() {
+			return latency >= 0 ? latency : System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * Counts of an endpoint, at some point in time.
+	 */
+	public static class Statistics {
+		private final long attempts;
+		private final long retries;
+		private final long failures;
+		private final Duration totalLatency;
+		private final Duration maxLatency;
+
+		private Statistics(long attempts, long retries, long failures, Duration totalLatency, Duration maxLatency) {
+			this.attempts = attempts;
+			this.retries = retries;
+			this.failures = failures;
+			this.totalLatency = checkNotNull(totalLatency);
+			this.maxLatency = checkNotNull(maxLatency);
+		}
+
+		/**
+		 * @return the number of requests sent, including retries.
+		 */
+		public long getAttempts() {
+			return attempts;
+		}
+
+		public long getRetries() {
+			return retries;
+		}
+
+		/**
+		 * @return the number of requests given up, after their last attempt failed.
+		 */
+		public long getFailures() {
+			return failures;
+		}
+
+		/**
+		 * @return the mean latency of the attempts, failed or not.
+		 */
+		public Duration getMeanLatency() {
+			return attempts == 0 ? Duration.ZERO : totalLatency.dividedBy(attempts);
+		}
+
+		public Duration getMaxLatency() {
+			return maxLatency;
+		}
+
+		@Override
+		public String toString() {
+			return MoreObjects.toStringHelper(this).add("attempts", attempts).add("retries", retries)
+					.add("failures", failures).add("mean latency", getMeanLatency()).add("max latency", maxLatency)
+					.toString();
+		}
+	}
+
+	private static class Counters {
+		private final AtomicLong attempts = new AtomicLong();
+		private final AtomicLong retries = new AtomicLong();
+		private final AtomicLong failures = new AtomicLong();
+		private final AtomicLong totalNanos = new AtomicLong();
+		private final AtomicLong maxNanos = new AtomicLong();
+
+		private void attempted(long nanos) {
+			attempts.incrementAndGet();
+			totalNanos.addAndGet(nanos);
+			maxNanos.accumulateAndGet(nanos, Math::max);
+		}
+
+		private Statistics snapshot() {
+			return new Statistics(attempts.get(), retries.get(), failures.get(), Duration.ofNanos(totalNanos.get()),
+					Duration.ofNanos(maxNanos.get()));
+		}
+	}
+
+	/**
+	 * The state of the requests towards one host.
+	 */
+	private class Host {
+		private final ReentrantLock lock = new ReentrantLock();
+		private final Condition slotFreed = lock.newCondition();
+		private int inFlight = 0;
+		/** Between 1 and maxPerHost. */
+		private double limit = maxPerHost;
+		/** May be negative, when requests are waiting for tokens. */
+		private double tokens = Math.max(requestsPerSecond, 1d);
+		private long refilledNanos = System.nanoTime();
+		/**
+		 * The smoothed latency of each endpoint, as endpoints may differ widely, for
+		 * example small POMs and large listings.
+		 */
+		private final Map<String, Double> smoothedNanos = new HashMap<>();
+
+		/**
+		 * Blocks until a slot is free, then takes a token.
+		 *
+		 * @return the time to wait for the token, in nanoseconds.
+		 * @throws InterruptedException if interrupted while waiting for a slot, in
+		 *                              which case none is taken.
+		 */
+		private long acquire() throws InterruptedException {
+			lock.lock();
+			try {
+				while (inFlight >= (int) limit) {
+					slotFreed.await();
+				}
+				++inFlight;
+				if (Double.isInfinite(requestsPerSecond)) {
+					return 0;
+				}
+				final long now = System.nanoTime();
+				tokens = Math.min(Math.max(requestsPerSecond, 1d),
+						tokens + (now - refilledNanos) * requestsPerSecond / 1e9);
+				refilledNanos = now;
+				tokens -= 1d;
+				return tokens >= 0d ? 0 : (long) (-tokens / requestsPerSecond * 1e9);
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		/**
+		 * Frees the slot of a request that was not sent, leaving the limit as is.
+		 */
+		private void abandon() {
+			lock.lock();
+			try {
+				--inFlight;
+				slotFreed.signalAll();
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		private void release(boolean congested, String endpoint, long nanos) {
+			lock.lock();
+			try {
+				--inFlight;
+				final Double smoothed = smoothedNanos.get(endpoint);
+				if (congested) {
+					limit = Math.max(1d, limit / 2d);
+				} else if (smoothed != null && nanos > LATENCY_TOLERANCE * smoothed) {
+					limit = Math.max(1d, limit * 0.9d);
+				} else {
+					limit = Math.min(maxPerHost, limit + 1d / limit);
+				}
+				smoothedNanos.put(endpoint, smoothed == null ? nanos : smoothed + SMOOTHING * (nanos - smoothed));
+				slotFreed.signalAll();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	private final double requestsPerSecond;
+	private final int maxPerHost;
+	private final int maxAttempts;
+	private final Duration backoff;
+	private final ConcurrentMap<String, Host> hosts;
+	private final ConcurrentMap<String, Counters> counters;
+
+	private RequestScheduler(double requestsPerSecond, int maxPerHost, int maxAttempts, Duration backoff) {
+		checkArgument(requestsPerSecond > 0d);
+		checkArgument(maxPerHost >= 1);
+		checkArgument(maxAttempts >= 1);
+		checkArgument(!backoff.isNegative());
+		this.requestsPerSecond = requestsPerSecond;
+		this.maxPerHost = maxPerHost;
+		this.maxAttempts = maxAttempts;
+		this.backoff = backoff;
+		hosts = new ConcurrentHashMap<>();
+		counters = new ConcurrentHashMap<>();
+	}
+
+	public int getMaxPerHost() {
+		return maxPerHost;
+	}
+
+	/**
+	 * @return the number of requests currently allowed in flight towards the
+	 *         host of the given URI.
+	 */
+	public int getConcurrencyLimit(URI uri) {
+		final Host host = getHost(uri);
+		host.lock.lock();
+		try {
+			return (int) host.limit;
+		} finally {
+			host.lock.unlock();
+		}
+	}
+
+	public ImmutableMap<String, Statistics> getStatistics() {
+		return counters.entrySet().stream()
+				.collect(ImmutableMap.toImmutableMap(e -> e.getKey(), e -> e.getValue().snapshot()));
+	}
+
+	/**
+	 * Runs the given request towards the given URI when the host allows it,
+	 * retrying it if it fails transiently, that is, if it throws a
+	 * {@link TransientStatusException}, a {@link ProcessingException} (as a JAX-RS
+	 * client does on I/O errors and timeouts) or an {@link UncheckedIOException}.
+	 * Any other exception is thrown immediately.
+	 *
+	 * @param endpoint the label under which to count this request, and to which
+	 *                 its latency is compared.
+	 * @throws RuntimeException    the exception thrown by the last attempt, if all
+	 *                             attempts failed.
+	 * @throws ProcessingException if interrupted while waiting to send the request
+	 *                             or to retry it, in which case the interrupt flag
+	 *                             is set.
+	 */
+	public <T> T call(String endpoint, URI uri, Supplier<T> request) {
+		return call(endpoint, uri, a -> request.get());
+	}
+
+	/**
+	 * Runs the given request as {@link #call(String, URI, Supplier)} does, giving
+	 * it the current attempt, which the request should tell when the response
+	 * arrived.
+	 */
+	public <T> T call(String endpoint, URI uri, Function<Attempt, T> request) {
+		final Host host = getHost(uri);
+		final Counters endpointCounters = counters.computeIfAbsent(endpoint, e -> new Counters());
+		for (int attemptNumber = 1;; ++attemptNumber) {
+			final long wait;
+			try {
+				wait = host.acquire();
+			} catch (InterruptedException e) {
+				endpointCounters.failures.incrementAndGet();
+				throw interrupted(e);
+			}
+			try {
+				TimeUnit.NANOSECONDS.sleep(wait);
+			} catch (InterruptedException e) {
+				host.abandon();
+				endpointCounters.failures.incrementAndGet();
+				throw interrupted(e);
+			}
+			final Attempt attempt = new Attempt();
+			final RuntimeException failure;
+			try {
+				final T result = request.apply(attempt);
+				final long nanos = attempt.getLatency();
+				endpointCounters.attempted(nanos);
+				host.release(false, endpoint, nanos);
+				return result;
+			} catch (TransientStatusException | ProcessingException | UncheckedIOException e) {
+				failure = e;
+			} catch (RuntimeException | Error e) {
+				final long nanos = attempt.getLatency();
+				endpointCounters.attempted(nanos);
+				host.release(false, endpoint, nanos);
+				throw e;
+			}
+			final long nanos = attempt.getLatency();
+			endpointCounters.attempted(nanos);
+			final boolean throttled = !(failure instanceof TransientStatusException)
+					|| ((TransientStatusException) failure).getStatus() == 429
+					|| ((TransientStatusException) failure).getStatus() == 503;
+			host.release(throttled, endpoint, nanos);
+			if (attemptNumber == maxAttempts) {
+				endpointCounters.failures.incrementAndGet();
+				throw failure;
+			}
+			endpointCounters.retries.incrementAndGet();
+			final Duration delay = getDelay(attemptNumber, failure);
+			LOGGER.debug("Retrying {} in {} after {}.", uri, delay, failure.toString());
+			try {
+				TimeUnit.NANOSECONDS.sleep(delay.toNanos());
+			} catch (InterruptedException e) {
+				endpointCounters.failures.incrementAndGet();
+				throw interrupted(e);
+			}
+		}
+	}
+
+	/**
+	 * Restores the interrupt flag, so that the caller still sees it, and returns
+	 * the exception that fails the call, as a JAX-RS client would.
+	 */
+	private static ProcessingException interrupted(InterruptedException e) {
+		Thread.currentThread().interrupt();
+		return new ProcessingException(e);
+	}
+
+	private Host getHost(URI uri) {
+		return hosts.computeIfAbsent(String.valueOf(uri.getAuthority()), h -> new Host());
+	}
+
+	/**
+	 * @param attempt the number of the attempt that failed, from 1.
+	 * @return a delay drawn uniformly between half and all of the backoff for the
+	 *         given attempt, or the delay asked for by the server, if longer; at
+	 *         most {@link #MAX_WAIT}.
+	 */
+	private Duration getDelay(int attempt, RuntimeException failure) {
+		final long ceiling = Math.min(MAX_WAIT.toNanos(), backoff.toNanos() << Math.min(attempt - 1, 20));
+		final long jittered = ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+		final Optional<Duration> asked = failure instanceof TransientStatusException
+				? ((TransientStatusException) failure).getRetryAfter()
+				: Optional.empty();
+		final Duration delay = asked.filter(a -> a.toNanos() > jittered).orElse(Duration.ofNanos(jittered));
+		return delay.compareTo(MAX_WAIT) > 0 ? MAX_WAIT : delay;
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this).add("requests per second", requestsPerSecond)
+				.add("max per host", maxPerHost).add("max attempts", maxAttempts).add("backoff", backoff)
+				.toString();
+	}
+}
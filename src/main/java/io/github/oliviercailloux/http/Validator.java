@@ -0,0 +1,109 @@
+package io.github.oliviercailloux.http;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.Response;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * The validators that a server sent along with a resource, which permit to ask
+ * it later whether that resource changed.
+ */
+public class Validator {
+	static final DateTimeFormatter FORMATTER = DateTimeFormatter.RFC_1123_DATE_TIME.localizedBy(Locale.ENGLISH);
+
+	public static Validator given(Optional<Instant> lastModified, Optional<String> eTag) {
+		return new Validator(lastModified, eTag);
+	}
+
+	/**
+	 * @return empty iff the response has neither a Last-Modified nor an ETag
+	 *         header.
+	 */
+	public static Optional<Validator> from(Response response) {
+		final Optional<Instant> lastModified = Optional.ofNullable(response.getHeaderString("last-modified"))
+				.map((r) -> FORMATTER.parse(r, Instant::from));
+		final Optional<String> eTag = Optional.ofNullable(response.getHeaderString("etag"));
+		if (lastModified.isEmpty() && eTag.isEmpty()) {
+			return Optional.empty();
+		}
+		return Optional.of(given(lastModified, eTag));
+	}
+
+	/**
+	 * @param json as produced by {@link #asJson()}.
+	 */
+	public static Validator fromJson(JsonObject json) {
+		final Optional<Instant> lastModified = Optional.ofNullable(json.getString("lastModified", null))
+				.map(Instant::parse);
+		final Optional<String> eTag = Optional.ofNullable(json.getString("eTag", null));
+		return given(lastModified, eTag);
+	}
+
+	private final Optional<Instant> lastModified;
+	private final Optional<String> eTag;
+
+	private Validator(Optional<Instant> lastModified, Optional<String> eTag) {
+		this.lastModified = checkNotNull(lastModified);
+		this.eTag = checkNotNull(eTag);
+		checkArgument(lastModified.isPresent() || eTag.isPresent());
+	}
+
+	public Optional<Instant> getLastModified() {
+		return lastModified;
+	}
+
+	public Optional<String> getETag() {
+		return eTag;
+	}
+
+	/**
+	 * Makes the given request conditional: the server will answer with 304 (Not
+	 * Modified) if the resource still matches this validator.
+	 */
+	public Invocation.Builder addTo(Invocation.Builder request) {
+		lastModified.ifPresent(
+				l -> request.header("if-modified-since", FORMATTER.format(l.atZone(ZoneOffset.UTC))));
+		eTag.ifPresent(e -> request.header("if-none-match", e));
+		return request;
+	}
+
+	public JsonObject asJson() {
+		final JsonObjectBuilder builder = Json.createObjectBuilder();
+		lastModified.ifPresent(l -> builder.add("lastModified", l.toString()));
+		eTag.ifPresent(e -> builder.add("eTag", e));
+		return builder.build();
+	}
+
+	@Override
+	public boolean equals(Object o2) {
+		if (!(o2 instanceof Validator)) {
+			return false;
+		}
+		final Validator v2 = (Validator) o2;
+		return lastModified.equals(v2.lastModified) && eTag.equals(v2.eTag);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(lastModified, eTag);
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this).add("lastModified", lastModified).add("eTag", eTag).toString();
+	}
+}
@@ -0,0 +1,101 @@
+package io.github.oliviercailloux.http;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+import javax.json.JsonWriter;
+import javax.ws.rs.core.Response;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Remembers the validators of many resources, indexed by URI, so that later
+ * requests for these resources can be made conditional. Safe for use by
+ * concurrent threads.
+ */
+public class ValidatorStore {
+	public static ValidatorStore empty() {
+		return new ValidatorStore();
+	}
+
+	/**
+	 * @return an empty store if the given file does not exist.
+	 */
+	public static ValidatorStore read(Path path) throws IOException {
+		final ValidatorStore store = new ValidatorStore();
+		if (!Files.exists(path)) {
+			return store;
+		}
+		final JsonObject json;
+		try (BufferedReader reader = Files.newBufferedReader(path); JsonReader jsonReader = Json.createReader(reader)) {
+			json = jsonReader.readObject();
+		}
+		for (Entry<String, JsonValue> entry : json.entrySet()) {
+			store.validators.put(URI.create(entry.getKey()), Validator.fromJson(entry.getValue().asJsonObject()));
+		}
+		return store;
+	}
+
+	private final ConcurrentMap<URI, Validator> validators;
+
+	private ValidatorStore() {
+		validators = new ConcurrentHashMap<>();
+	}
+
+	public Optional<Validator> get(URI uri) {
+		return Optional.ofNullable(validators.get(uri));
+	}
+
+	/**
+	 * Records the validator of the given response, or forgets the validator of
+	 * the given resource if the response has none.
+	 */
+	public void record(URI uri, Response response) {
+		final Optional<Validator> validator = Validator.from(response);
+		if (validator.isPresent()) {
+			validators.put(uri, validator.get());
+		} else {
+			validators.remove(uri);
+		}
+	}
+
+	public void remove(URI uri) {
+		validators.remove(uri);
+	}
+
+	/**
+	 * Forgets the validators of the given resource and of all the resources whose
+	 * URI starts with its URI, such as the files of a directory.
+	 */
+	public void removeUnder(URI prefix) {
+		final String prefixString = prefix.toString();
+		validators.keySet().removeIf(u -> u.toString().startsWith(prefixString));
+	}
+
+	public ImmutableMap<URI, Validator> asMap() {
+		return ImmutableMap.copyOf(validators);
+	}
+
+	public void write(Path path) throws IOException {
+		final JsonObjectBuilder builder = Json.createObjectBuilder();
+		for (Entry<URI, Validator> entry : validators.entrySet()) {
+			builder.add(entry.getKey().toString(), entry.getValue().asJson());
+		}
+		try (BufferedWriter writer = Files.newBufferedWriter(path); JsonWriter jsonWriter = Json.createWriter(writer)) {
+			jsonWriter.write(builder.build());
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package io.github.oliviercailloux.metrics;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Counts durations in buckets whose bounds are powers of two nanoseconds, so
+ * that recording is a few atomic increments and quantiles are known within a
+ * factor of two. Safe for use by concurrent threads.
+ */
+public class LatencyHistogram {
+	public static LatencyHistogram empty() {
+		return new LatencyHistogram();
+	}
+
+	/**
+	 * Bucket i counts the durations d such that 2^(i-1) ≤ d < 2^i ns (bucket 0
+	 * counts the zero durations).
+	 */
+	private final AtomicLongArray buckets;
+	private final AtomicLong count;
+	private final AtomicLong totalNanos;
+	private final AtomicLong maxNanos;
+
+	private LatencyHistogram() {
+		buckets = new AtomicLongArray(Long.SIZE);
+		count = new AtomicLong();
+		totalNanos = new AtomicLong();
+		maxNanos = new AtomicLong();
+	}
+
+	public void record(long nanos) {
+		checkArgument(nanos >= 0);
+		buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(nanos));
+		count.incrementAndGet();
+		totalNanos.addAndGet(nanos);
+		maxNanos.accumulateAndGet(nanos, Math::max);
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public Duration getTotal() {
+		return Duration.ofNanos(totalNanos.get());
+	}
+
+	public Duration getMean() {
+		final long n = count.get();
+		return n == 0 ? Duration.ZERO : Duration.ofNanos(totalNanos.get() / n);
+	}
+
+	public Duration getMax() {
+		return Duration.ofNanos(maxNanos.get());
+	}
+
+	/**
+	 * @param quantile between 0 and 1.
+	 * @return an upper bound of the given quantile, at most twice too large, and
+	 *         no larger than the maximum; zero if nothing has been recorded.
+	 */
+	public Duration getQuantile(double quantile) {
+		checkArgument(0d <= quantile && quantile <= 1d);
+		final long n = count.get();
+		final long rank = (long) Math.ceil(quantile * n);
+		long seen = 0;
+		for (int i = 0; i < Long.SIZE; ++i) {
+			seen += buckets.get(i);
+			if (seen >= rank && seen > 0) {
+				final long bound = i == 0 ? 0 : i == Long.SIZE - 1 ? Long.MAX_VALUE : (1L << i) - 1;
+				return Duration.ofNanos(Math.min(bound, maxNanos.get()));
+			}
+		}
+		return getMax();
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this).add("count", getCount()).add("total", getTotal())
+				.add("mean", getMean()).add("p50", getQuantile(0.5d)).add("p99", getQuantile(0.99d))
+				.add("max", getMax()).toString();
+	}
+}
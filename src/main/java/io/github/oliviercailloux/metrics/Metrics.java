@@ -0,0 +1,161 @@
+package io.github.oliviercailloux.metrics;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+
+/**
+ * The time spent in each phase of some work, such as a crawl, as latency
+ * histograms, and the number of bytes each phase transferred. Each timed phase
+ * is also reported to the flight recorder, as an event of type
+ * {@code io.github.oliviercailloux.Phase}, so that a recording shows where
+ * the time goes, thread by thread.
+ * <p>
+ * Phases are named freely by the code that times them. Safe for use by
+ * concurrent threads.
+ */
+public class Metrics {
+	public static Metrics create() {
+		return new Metrics();
+	}
+
+	/**
+	 * The timing of one occurrence of a phase, recorded when first closed;
+	 * closing it again has no effect.
+	 */
+	public class Timing implements AutoCloseable {
+		private final String phase;
+		private final PhaseEvent event;
+		private final long start;
+		private long bytes;
+		private boolean closed;
+
+		private Timing(String phase) {
+			this.phase = checkNotNull(phase);
+			event = new PhaseEvent();
+			event.begin();
+			start = System.nanoTime();
+			bytes = 0;
+			closed = false;
+		}
+
+		/**
+		 * Counts bytes transferred during this occurrence.
+		 */
+		public void addBytes(long count) {
+			checkArgument(count >= 0);
+			bytes += count;
+		}
+
+		@Override
+		public void close() {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			record(phase, System.nanoTime() - start, bytes);
+			event.end();
+			if (event.shouldCommit()) {
+				event.phase = phase;
+				event.bytes = bytes;
+				event.commit();
+			}
+		}
+	}
+
+	private final ConcurrentMap<String, LatencyHistogram> latencies;
+	private final ConcurrentMap<String, AtomicLong> bytes;
+	private final ConcurrentMap<String, AtomicLong> counts;
+
+	private Metrics() {
+		latencies = new ConcurrentHashMap<>();
+		bytes = new ConcurrentHashMap<>();
+		counts = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Starts timing an occurrence of the given phase, to be closed by the thread
+	 * that started it.
+	 */
+	public Timing start(String phase) {
+		return new Timing(phase);
+	}
+
+	public <T> T time(String phase, Supplier<T> work) {
+		final Timing timing = start(phase);
+		try {
+			return work.get();
+		} finally {
+			timing.close();
+		}
+	}
+
+	public void time(String phase, Runnable work) {
+		final Timing timing = start(phase);
+		try {
+			work.run();
+		} finally {
+			timing.close();
+		}
+	}
+
+	/**
+	 * Records an occurrence of the given phase that has been timed otherwise.
+	 */
+	public void record(String phase, long nanos, long transferred) {
+		latencies.computeIfAbsent(phase, p -> LatencyHistogram.empty()).record(nanos);
+		if (transferred > 0) {
+			bytes.computeIfAbsent(phase, p -> new AtomicLong()).addAndGet(transferred);
+		}
+	}
+
+	/**
+	 * @return the latencies of the phases recorded so far, by phase name.
+	 */
+	public ImmutableSortedMap<String, LatencyHistogram> getLatencies() {
+		return ImmutableSortedMap.copyOf(latencies);
+	}
+
+	/**
+	 * @return the bytes transferred by the phases that transferred any, by phase
+	 *         name.
+	 */
+	public ImmutableMap<String, Long> getBytes() {
+		return bytes.entrySet().stream().collect(
+				ImmutableSortedMap.toImmutableSortedMap(String::compareTo, e -> e.getKey(), e -> e.getValue().get()));
+	}
+
+	public long getTotalBytes() {
+		return bytes.values().stream().mapToLong(AtomicLong::get).sum();
+	}
+
+	/**
+	 * Adds the given amount to the given counter, for quantities that are not
+	 * tied to a phase, such as a number of bytes saved.
+	 */
+	public void count(String counter, long amount) {
+		counts.computeIfAbsent(counter, c -> new AtomicLong()).addAndGet(amount);
+	}
+
+	/**
+	 * @return the counters that have been counted so far, by name.
+	 */
+	public ImmutableMap<String, Long> getCounts() {
+		return counts.entrySet().stream().collect(
+				ImmutableSortedMap.toImmutableSortedMap(String::compareTo, e -> e.getKey(), e -> e.getValue().get()));
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this).add("latencies", getLatencies()).add("bytes", getBytes())
+				.add("counts", getCounts()).toString();
+	}
+}
@@ -0,0 +1,25 @@
+package io.github.oliviercailloux.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event spanning one timed phase, committed by
+ * {@link Metrics.Timing#close()}. Costs next to nothing when no recording is
+ * running.
+ */
+@Name("io.github.oliviercailloux.Phase")
+@Label("Phase")
+@Category("Archetypes browser")
+@Description("A timed phase of a crawl or an export")
+class PhaseEvent extends jdk.jfr.Event {
+	@Label("Phase")
+	String phase;
+
+	@Label("Bytes")
+	@DataAmount
+	long bytes;
+}
@@ -0,0 +1,108 @@
+package io.github.oliviercailloux.metrics;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Counts the items of some long work as they are done, and logs periodically,
+ * from a daemon thread of its own, how many are done, the throughput since
+ * the start, the estimated time remaining (once the total is known), and the
+ * given metrics. Must be closed to stop logging. Safe for use by concurrent
+ * threads.
+ */
+public class Progress implements AutoCloseable {
+	@SuppressWarnings("unused")
+	private static final Logger LOGGER = LoggerFactory.getLogger(Progress.class);
+
+	/**
+	 * @param unit the name of the items, such as “artifacts”.
+	 */
+	public static Progress reporting(String unit, Duration period, Metrics metrics) {
+		checkArgument(!period.isNegative() && !period.isZero());
+		final Progress progress = new Progress(unit, metrics);
+		progress.executor.scheduleAtFixedRate(() -> LOGGER.info("Progress: {}; {}.", progress, metrics),
+				period.toNanos(), period.toNanos(), TimeUnit.NANOSECONDS);
+		return progress;
+	}
+
+	private final String unit;
+	private final Metrics metrics;
+	private final long startNanos;
+	private final AtomicLong done;
+	/** Negative while unknown. */
+	private final AtomicLong total;
+	private final ScheduledExecutorService executor;
+
+	private Progress(String unit, Metrics metrics) {
+		this.unit = checkNotNull(unit);
+		this.metrics = checkNotNull(metrics);
+		startNanos = System.nanoTime();
+		done = new AtomicLong();
+		total = new AtomicLong(-1);
+		executor = Executors.newSingleThreadScheduledExecutor(r -> {
+			final Thread thread = new Thread(r, "Progress of " + unit);
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	public void setTotal(long count) {
+		checkArgument(count >= 0);
+		total.set(count);
+	}
+
+	public void advance() {
+		done.incrementAndGet();
+	}
+
+	public long getDone() {
+		return done.get();
+	}
+
+	/**
+	 * @return the number of items done per second since the start.
+	 */
+	public double getThroughput() {
+		final long elapsed = System.nanoTime() - startNanos;
+		return elapsed == 0 ? 0d : done.get() * 1e9d / elapsed;
+	}
+
+	/**
+	 * @return the time remaining at the current throughput, if the total is known
+	 *         and some items are done.
+	 */
+	public Optional<Duration> getRemaining() {
+		final long totalCount = total.get();
+		final double throughput = getThroughput();
+		if (totalCount < 0 || throughput == 0d) {
+			return Optional.empty();
+		}
+		return Optional.of(Duration.ofSeconds((long) (Math.max(0, totalCount - done.get()) / throughput)));
+	}
+
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+
+	@Override
+	public String toString() {
+		final long totalCount = total.get();
+		return String.format("%d/%s %s, %.1f/s, ETA %s", done.get(), totalCount < 0 ? "?" : totalCount, unit,
+				getThroughput(), getRemaining().map(Duration::toString).orElse("unknown"));
+	}
+}
@@ -0,0 +1,54 @@
+package io.github.oliviercailloux.archetypes_browser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+class ArtifactQueryTests {
+	private static ImmutableSet<ArtifactWithReleases> getArtifacts() {
+		final ImmutableSet.Builder<ArtifactWithReleases> builder = ImmutableSet.builder();
+		for (int i = 0; i < 5000; ++i) {
+			final Artifact artifact = Artifact.given("io.github.group" + (i % 50), "archetype-" + i);
+			final ImmutableSet.Builder<ArtifactRelease> releases = ImmutableSet.builder();
+			for (int v = 0; v < 1 + i % 9; ++v) {
+				final Instant date = (i + v) % 11 == 0 ? Fetcher.EARLY
+						: Instant.parse("2008-01-01T10:00:00Z").plusSeconds(86400L * ((i * 37 + v * 101) % 4000));
+				final String description = i % 13 == 0 ? "" : "A " + (i % 3 == 0 ? "Spring" : "plain") + " archetype";
+				releases.add(ArtifactRelease.given(artifact, "1." + v, description, date));
+			}
+			builder.add(ArtifactWithReleases.given(releases.build()));
+		}
+		return builder.build();
+	}
+
+	@Test
+	void testParallelSameAsSequential() throws Exception {
+		final ImmutableSet<ArtifactWithReleases> artifacts = getArtifacts();
+		final Instant now = Instant.parse("2019-08-14T00:00:00Z");
+		final ImmutableList<ArtifactQuery> queries = ImmutableList.of(ArtifactQuery.all(),
+				ArtifactQuery.all().withFirstReleaseBefore(Instant.parse("2014-01-01T00:00:00Z"))
+						.withLastReleaseAfter(Instant.parse("2018-01-01T00:00:00Z")),
+				ArtifactQuery.all().withGroupIdMatching(Pattern.compile("io\\.github\\.group1[0-9]"))
+						.withDescriptionContaining("spring").sortedBy(ArtifactQuery.BY_LAST_RELEASE.reversed()),
+				ArtifactQuery.all().withReleaseCountBetween(3, 5).withLastReleaseBefore(now)
+						.sortedBy(ArtifactQuery.BY_RELEASE_COUNT).limit(100),
+				ArtifactQuery.all().withArtifactIdMatching(Pattern.compile(".*7")).sortedBy(ArtifactQuery.BY_ARTIFACT)
+						.limit(10));
+		for (ArtifactQuery query : queries) {
+			assertEquals(query.run(artifacts), query.runParallel(artifacts), query.toString());
+		}
+
+		final ImmutableList<ArtifactWithReleases> spring = ArtifactQuery.all().withDescriptionContaining("SPRING")
+				.run(artifacts);
+		assertTrue(spring.stream().allMatch(a -> a.getArtifact().getArtifactId().matches("archetype-[0-9]*")
+				&& Integer.parseInt(a.getArtifact().getArtifactId().substring(10)) % 3 == 0));
+		assertEquals(ImmutableList.copyOf(artifacts).subList(0, 3), ArtifactQuery.all().limit(3).run(artifacts));
+	}
+}
@@ -0,0 +1,88 @@
+package io.github.oliviercailloux.archetypes_browser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+class DescriptionIndexTests {
+	private static final Artifact SPRING = Artifact.given("org.example", "spring-boot-archetype");
+	private static final Artifact JAVAFX = Artifact.given("org.example.fx", "javafx-archetype");
+	private static final Artifact WEB = Artifact.given("com.other", "webapp-archetype");
+
+	private static ArtifactWithReleases withDescription(Artifact artifact, String... descriptions) {
+		final ImmutableSet.Builder<ArtifactRelease> releases = ImmutableSet.builder();
+		for (int i = 0; i < descriptions.length; ++i) {
+			releases.add(ArtifactRelease.given(artifact, "1." + i, descriptions[i],
+					Instant.parse("2015-01-01T10:00:00Z").plusSeconds(86400L * i)));
+		}
+		return ArtifactWithReleases.given(releases.build());
+	}
+
+	private static DescriptionIndex getIndex() {
+		return DescriptionIndex.of(ImmutableSet.of(
+				withDescription(SPRING, "A Spring Boot web application", "A Spring Boot web application"),
+				withDescription(JAVAFX, "A JavaFX desktop application"),
+				withDescription(WEB, "A simple web application, with Servlets", "A simple webapp")));
+	}
+
+	@Test
+	void testSearch() throws Exception {
+		final DescriptionIndex index = getIndex();
+		assertEquals(ImmutableList.of(SPRING), index.search("spring", 10));
+		assertEquals(ImmutableList.of(SPRING, WEB), index.search("Web application", 10));
+		assertEquals(ImmutableList.of(WEB, SPRING), index.search("web*", 10));
+		assertEquals(ImmutableList.of(JAVAFX), index.search("application -web", 10));
+		assertEquals(ImmutableSet.of(SPRING, JAVAFX),
+				ImmutableSet.copyOf(index.search("javafx OR boot application", 10)));
+		assertEquals(ImmutableList.of(JAVAFX), index.search("fx", 10));
+		assertEquals(1, index.search("application", 1).size());
+		assertEquals(ImmutableList.of(), index.search("nothing", 10));
+	}
+
+	/**
+	 * Words of queries with punctuation are split as the descriptions are.
+	 */
+	@Test
+	void testPunctuation() throws Exception {
+		final DescriptionIndex index = getIndex();
+		assertEquals(ImmutableList.of(SPRING), index.search("spring-boot", 10));
+		assertEquals(ImmutableList.of(SPRING), index.search("Spring-Bo*", 10));
+		assertEquals(ImmutableList.of(SPRING, WEB), index.search("web-application", 10));
+		assertEquals(ImmutableList.of(WEB), index.search("servlets, -spring-boot", 10));
+		assertEquals(ImmutableList.of(JAVAFX), index.search("application -web-app*", 10));
+		assertEquals(ImmutableList.of(), index.search("spring-desktop", 10));
+		assertEquals(ImmutableList.of(), index.search("-- *", 10));
+	}
+
+	@Test
+	void testUpdate() throws Exception {
+		final DescriptionIndex index = getIndex();
+		assertFalse(index.update(withDescription(JAVAFX, "A JavaFX desktop application")));
+		assertTrue(index.update(withDescription(JAVAFX, "A JavaFX desktop application", "Now with Gradle")));
+		assertEquals(ImmutableList.of(JAVAFX), index.search("gradle", 10));
+		assertEquals(1, index.retainAll(ImmutableSet.of(SPRING, JAVAFX)));
+		assertEquals(ImmutableList.of(), index.search("servlets", 10));
+		assertEquals(2, index.size());
+	}
+
+	@Test
+	void testReadWrite(@TempDir Path dir) throws Exception {
+		final DescriptionIndex index = getIndex();
+		final Path path = dir.resolve("Index.json");
+		index.write(path);
+		final DescriptionIndex read = DescriptionIndex.read(path);
+		assertEquals(index.size(), read.size());
+		for (String query : ImmutableList.of("web*", "application -web", "javafx OR boot application")) {
+			assertEquals(index.search(query, 10), read.search(query, 10));
+		}
+	}
+}
@@ -0,0 +1,507 @@
+package io.github.oliviercailloux.archetypes_browser;
+
+import static com.google.common.base.Preconditions.checkState;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.Response;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+
+import io.github.oliviercailloux.http.Downloader;
+import io.github.oliviercailloux.http.HttpCache;
+import io.github.oliviercailloux.http.PooledClient;
+import io.github.oliviercailloux.http.RequestScheduler;
+import io.github.oliviercailloux.http.ValidatorStore;
+
+class FetcherTests {
+	@SuppressWarnings("unused")
+	private static final Logger LOGGER = LoggerFactory.getLogger(FetcherTests.class);
+
+	@Test
+	void testConcurrentSameAsSequential(@TempDir Path dir) throws Exception {
+		final Path catalog = dir.resolve("archetype-catalog.xml");
+		try (StubRepository repository = StubRepository.started()) {
+			final ImmutableSet<ArtifactWithReleases> expected = repository.populate(catalog);
+
+			final ImmutableSet<ArtifactWithReleases> sequential;
+			try (Fetcher fetcher = Fetcher.sequential(repository.getUri())) {
+				sequential = fetcher.getAllReleases(catalog, ImmutableSet.of(), Fetcher.Descriptions.ALL);
+			}
+			assertEquals(expected, sequential);
+			assertEquals(1, repository.getMaxInFlight());
+
+			final ImmutableSet<ArtifactWithReleases> concurrent;
+			try (Fetcher fetcher = Fetcher.concurrent(repository.getUri(), 8, 3)) {
+				concurrent = fetcher.getAllReleases(catalog, ImmutableSet.of(), Fetcher.Descriptions.ALL);
+			}
+			assertEquals(sequential, concurrent);
+			assertEquals(ImmutableList.copyOf(sequential), ImmutableList.copyOf(concurrent));
+			assertTrue(repository.getMaxInFlight() <= 3, "" + repository.getMaxInFlight());
+		}
+	}
+
+	/**
+	 * Fetches only the POMs needed to find the latest description of each
+	 * artifact, and gives it to all its releases.
+	 */
+	@Test
+	void testLatestDescriptions(@TempDir Path dir) throws Exception {
+		final Path catalog = dir.resolve("archetype-catalog.xml");
+		try (StubRepository repository = StubRepository.started()) {
+			final ImmutableSet<ArtifactWithReleases> all = repository.populate(catalog);
+			final ImmutableSet.Builder<ArtifactWithReleases> expectedBuilder = ImmutableSet.builder();
+			for (ArtifactWithReleases withReleases : all) {
+				final String latest = withReleases.getReleases().stream()
+						.sorted(Comparator.comparing(ArtifactRelease::getReleaseDate).reversed())
+						.map(ArtifactRelease::getDescription).filter(d -> !d.isEmpty()).findFirst().orElse("");
+				expectedBuilder.add(ArtifactWithReleases.given(withReleases.getReleases().stream()
+						.map(r -> ArtifactRelease.given(r.getArtifact(), r.getVersion(), latest, r.getReleaseDate()))
+						.collect(ImmutableSet.toImmutableSet())));
+			}
+			final ImmutableSet<ArtifactWithReleases> expected = expectedBuilder.build();
+
+			try (Fetcher fetcher = Fetcher.concurrent(repository.getUri(), 4, 4)) {
+				assertEquals(expected, fetcher.getAllReleases(catalog));
+			}
+			final int latestRequests = repository.getRequestCount();
+			try (Fetcher fetcher = Fetcher.concurrent(repository.getUri(), 4, 4)) {
+				assertEquals(all, fetcher.getAllReleases(catalog, ImmutableSet.of(), Fetcher.Descriptions.ALL));
+			}
+			final int allRequests = repository.getRequestCount() - latestRequests;
+			LOGGER.info("Requests for latest descriptions: {}, for all: {}.", latestRequests, allRequests);
+			assertTrue(latestRequests < allRequests);
+		}
+	}
+
+	/**
+	 * Counts the connections opened during a crawl: with the pooled client, they
+	 * are bounded by the pool size, however many requests the crawl issues.
+	 */
+	@Test
+	void testConnectionsReused(@TempDir Path dir) throws Exception {
+		final Path catalog = dir.resolve("archetype-catalog.xml");
+		try (StubRepository repository = StubRepository.started()) {
+			repository.populate(catalog);
+			try (Fetcher fetcher = Fetcher.concurrent(repository.getUri(), 4, 4)) {
+				fetcher.getAllReleases(catalog, ImmutableSet.of(), Fetcher.Descriptions.ALL);
+			}
+			LOGGER.info("Requests: {}, connections: {}.", repository.getRequestCount(),
+					repository.getConnectionCount());
+			assertTrue(repository.getRequestCount() > 50);
+			assertTrue(repository.getConnectionCount() <= 4, "" + repository.getConnectionCount());
+		}
+	}
+
+	@Test
+	void testIncremental(@TempDir Path dir) throws Exception {
+		final Path catalog = dir.resolve("archetype-catalog.xml");
+		try (StubRepository repository = StubRepository.started()) {
+			final ImmutableSet<ArtifactWithReleases> expected = repository.populate(catalog);
+			final ValidatorStore validators = ValidatorStore.empty();
+			final ImmutableSet<ArtifactWithReleases> first;
+			try (Fetcher fetcher = Fetcher.sequential(repository.getUri(), validators)) {
+				first = fetcher.getAllReleases(catalog, ImmutableSet.of(), Fetcher.Descriptions.ALL);
+			}
+			assertEquals(expected, first);
+
+			/** Only the ghost entries of the catalog are not known from the first crawl. */
+			final int requestsBeforeSecond = repository.getRequestCount();
+			try (Fetcher fetcher = Fetcher.sequential(repository.getUri(), validators)) {
+				assertEquals(first, fetcher.getAllReleases(catalog, first, Fetcher.Descriptions.ALL));
+			}
+			assertEquals(3, repository.getRequestCount() - requestsBeforeSecond);
+
+			/**
+			 * A new release appears in the catalog: the listing is fetched, and only the
+			 * new POM is transferred.
+			 */
+			final ArtifactWithReleases firstArtifact = first.iterator().next();
+			final Artifact artifact = firstArtifact.getArtifact();
+			final ArtifactRelease oldRelease = Iterables.getOnlyElement(firstArtifact.getReleases());
+			final Instant newDate = Instant.parse("2020-01-01T10:00:00Z");
+			repository.putArtifact(artifact,
+					ImmutableMap.of(oldRelease.getVersion(), oldRelease.getReleaseDate(), "2.0", newDate),
+					ImmutableMap.of("2.0", "New"), newDate);
+			Files.writeString(catalog,
+					"<archetype-catalog><archetypes><archetype><groupId>" + artifact.getGroupId()
+							+ "</groupId><artifactId>" + artifact.getArtifactId()
+							+ "</artifactId><version>2.0</version></archetype></archetypes></archetype-catalog>");
+			final int requestsBeforeThird = repository.getRequestCount();
+			final ImmutableSet<ArtifactWithReleases> third;
+			try (Fetcher fetcher = Fetcher.sequential(repository.getUri(), validators)) {
+				third = fetcher.getAllReleases(catalog, first, Fetcher.Descriptions.ALL);
+			}
+			assertEquals(ImmutableSet.of(ArtifactWithReleases.given(
+					ImmutableSet.of(oldRelease, ArtifactRelease.given(artifact, "2.0", "New", newDate)))), third);
+			assertEquals(3, repository.getRequestCount() - requestsBeforeThird);
+			assertEquals(1, repository.getNotModifiedCount());
+		}
+	}
+
+	/**
+	 * When the crawl of an artifact fails after its listing has been fetched, the
+	 * previous releases are given instead, but the validator of the new listing
+	 * is not kept: the next crawl fetches the listing again and finds the new
+	 * release.
+	 */
+	@Test
+	void testFailureForgotten(@TempDir Path dir) throws Exception {
+		final Path catalog = dir.resolve("archetype-catalog.xml");
+		try (StubRepository repository = StubRepository.started()) {
+			final ImmutableSet<ArtifactWithReleases> first = repository.populate(catalog);
+			final ValidatorStore validators = ValidatorStore.empty();
+			final RequestScheduler scheduler = RequestScheduler.given(Double.POSITIVE_INFINITY, 1, 2,
+					Duration.ofMillis(10));
+			try (Fetcher fetcher = Fetcher.scheduled(repository.getUri(), 1, scheduler, validators)) {
+				assertEquals(first, fetcher.getAllReleases(catalog, ImmutableSet.of(), Fetcher.Descriptions.ALL));
+			}
+
+			final ArtifactWithReleases firstArtifact = first.iterator().next();
+			final Artifact artifact = firstArtifact.getArtifact();
+			final ArtifactRelease oldRelease = Iterables.getOnlyElement(firstArtifact.getReleases());
+			final Instant newDate = Instant.parse("2020-01-01T10:00:00Z");
+			repository.putArtifact(artifact,
+					ImmutableMap.of(oldRelease.getVersion(), oldRelease.getReleaseDate(), "2.0", newDate),
+					ImmutableMap.of("2.0", "New"), newDate);
+			Files.writeString(catalog,
+					"<archetype-catalog><archetypes><archetype><groupId>" + artifact.getGroupId()
+							+ "</groupId><artifactId>" + artifact.getArtifactId()
+							+ "</artifactId><version>2.0</version></archetype></archetypes></archetype-catalog>");
+			repository.failNext(artifact.getGroupIdSlashSeparated() + "/" + artifact.getArtifactId() + "/2.0/"
+					+ artifact.getArtifactId() + "-2.0.pom", 2, 500, Optional.empty());
+			try (Fetcher fetcher = Fetcher.scheduled(repository.getUri(), 1, scheduler, validators)) {
+				assertEquals(ImmutableSet.of(firstArtifact),
+						fetcher.getAllReleases(catalog, first, Fetcher.Descriptions.ALL));
+			}
+			assertEquals(2, repository.getFailureCount());
+
+			try (Fetcher fetcher = Fetcher.scheduled(repository.getUri(), 1, scheduler, validators)) {
+				assertEquals(
+						ImmutableSet.of(ArtifactWithReleases.given(
+								ImmutableSet.of(oldRelease, ArtifactRelease.given(artifact, "2.0", "New", newDate)))),
+						fetcher.getAllReleases(catalog, first, Fetcher.Descriptions.ALL));
+			}
+		}
+	}
+
+	/**
+	 * With a warm cache, a full crawl transfers no body: every request is a
+	 * revalidation answered by 304, except for those of the missing resources.
+	 */
+	@Test
+	void testWarmCache(@TempDir Path dir) throws Exception {
+		final Path catalog = dir.resolve("archetype-catalog.xml");
+		try (StubRepository repository = StubRepository.started()) {
+			final ImmutableSet<ArtifactWithReleases> expected = repository.populate(catalog);
+			final HttpCache cache = HttpCache.at(dir.resolve("cache"), 1L << 20, Duration.ofDays(1));
+			try (Fetcher fetcher = Fetcher.caching(repository.getUri(), 4, 4, ValidatorStore.empty(), cache)) {
+				assertEquals(expected, fetcher.getAllReleases(catalog, ImmutableSet.of(), Fetcher.Descriptions.ALL));
+			}
+			assertEquals(0, cache.getHits());
+			final long transferred = cache.getMisses();
+
+			final int requestsBefore = repository.getRequestCount();
+			try (Fetcher fetcher = Fetcher.caching(repository.getUri(), 4, 4, ValidatorStore.empty(), cache)) {
+				assertEquals(expected, fetcher.getAllReleases(catalog, ImmutableSet.of(), Fetcher.Descriptions.ALL));
+			}
+			assertEquals(transferred, cache.getHits());
+			assertEquals(transferred, cache.getMisses());
+			assertEquals(transferred, repository.getNotModifiedCount());
+			assertTrue(cache.getBytesSaved() > 0);
+			assertEquals(requestsBefore, repository.getRequestCount() - requestsBefore);
+		}
+	}
+
+	/**
+	 * A crawl that is killed resumes from its journal, and a crawl that fails for
+	 * an artifact goes on with the others.
+	 */
+	@Test
+	void testResume(@TempDir Path dir) throws Exception {
+		final Path catalog = dir.resolve("archetype-catalog.xml");
+		final Path journalPath = dir.resolve("Artifacts.journal");
+		try (StubRepository repository = StubRepository.started()) {
+			final ImmutableSet<ArtifactWithReleases> all = repository.populate(catalog);
+			final Artifact broken = Iterables.get(all, 20).getArtifact();
+			repository.put(broken.getGroupIdSlashSeparated() + "/" + broken.getArtifactId() + "/",
+					"<html><body>Moved.</body></html>");
+			final ImmutableSet<ArtifactWithReleases> expected = all.stream()
+					.filter(a -> !a.getArtifact().equals(broken)).collect(ImmutableSet.toImmutableSet());
+
+			final ImmutableList<ArtifactWithReleases> complete;
+			try (Fetcher fetcher = Fetcher.sequential(repository.getUri())) {
+				complete = ImmutableList
+						.copyOf(fetcher.getAllReleases(catalog, ImmutableSet.of(), Fetcher.Descriptions.ALL));
+			}
+			assertEquals(ImmutableList.copyOf(expected), complete);
+			final int completeRequests = repository.getRequestCount();
+
+			final List<ArtifactWithReleases> beforeKill = new ArrayList<>();
+			try (CrawlJournal journal = CrawlJournal.open(journalPath);
+					Fetcher fetcher = Fetcher.sequential(repository.getUri())) {
+				assertThrows(IllegalStateException.class, () -> fetcher.getAllReleases(catalog, ImmutableSet.of(),
+						Fetcher.Descriptions.ALL, journal, a -> {
+							checkState(beforeKill.size() < 10);
+							beforeKill.add(a);
+						}));
+			}
+			/** Killed while writing an entry. */
+			Files.writeString(journalPath, "{\"groupId\":\"io.gi", StandardOpenOption.APPEND);
+
+			final List<ArtifactWithReleases> resumed = new ArrayList<>();
+			final int requestsBefore = repository.getRequestCount();
+			try (CrawlJournal journal = CrawlJournal.open(journalPath);
+					Fetcher fetcher = Fetcher.sequential(repository.getUri())) {
+				assertTrue(journal.getCompleted().keySet().containsAll(beforeKill.stream()
+						.map(ArtifactWithReleases::getArtifact).collect(ImmutableSet.toImmutableSet())));
+				fetcher.getAllReleases(catalog, ImmutableSet.of(), Fetcher.Descriptions.ALL, journal, resumed::add);
+				assertEquals(ImmutableSet.of(broken), journal.getFailed().keySet());
+			}
+			assertEquals(complete, resumed);
+			final int resumedRequests = repository.getRequestCount() - requestsBefore;
+			LOGGER.info("Requests for a complete crawl: {}, for a resumed one: {}.", completeRequests,
+					resumedRequests);
+			assertTrue(resumedRequests < completeRequests);
+		}
+	}
+
+	/**
+	 * Requests that fail transiently are retried, after the delay asked for by the
+	 * server if any; an artifact whose requests keep failing is given up.
+	 */
+	@Test
+	void testRetries(@TempDir Path dir) throws Exception {
+		final Path catalog = dir.resolve("archetype-catalog.xml");
+		try (StubRepository repository = StubRepository.started()) {
+			final ImmutableSet<ArtifactWithReleases> all = repository.populate(catalog);
+			final ImmutableList<Artifact> artifacts = all.stream().map(ArtifactWithReleases::getArtifact)
+					.collect(ImmutableList.toImmutableList());
+			for (Artifact artifact : artifacts.subList(2, 7)) {
+				repository.failNext(artifact.getGroupIdSlashSeparated() + "/" + artifact.getArtifactId() + "/", 2,
+						503, Optional.empty());
+			}
+			final Artifact throttled = artifacts.get(0);
+			repository.failNext(throttled.getGroupIdSlashSeparated() + "/" + throttled.getArtifactId() + "/1.0/"
+					+ throttled.getArtifactId() + "-1.0.pom", 1, 429, Optional.of("1"));
+			final Artifact broken = artifacts.get(1);
+			repository.failNext(broken.getGroupIdSlashSeparated() + "/" + broken.getArtifactId() + "/", 10, 500,
+					Optional.empty());
+			final ImmutableSet<ArtifactWithReleases> expected = all.stream()
+					.filter(a -> !a.getArtifact().equals(broken)).collect(ImmutableSet.toImmutableSet());
+
+			final RequestScheduler scheduler = RequestScheduler.given(Double.POSITIVE_INFINITY, 4, 3,
+					Duration.ofMillis(10));
+			final Instant start = Instant.now();
+			try (Fetcher fetcher = Fetcher.scheduled(repository.getUri(), 4, scheduler, ValidatorStore.empty())) {
+				assertEquals(expected, fetcher.getAllReleases(catalog, ImmutableSet.of(), Fetcher.Descriptions.ALL));
+			}
+			assertTrue(Duration.between(start, Instant.now()).compareTo(Duration.ofSeconds(1)) >= 0);
+			final ImmutableMap<String, RequestScheduler.Statistics> statistics = scheduler.getStatistics();
+			LOGGER.info("Statistics: {}.", statistics);
+			assertEquals(5 * 2 + 2, statistics.get("listing").getRetries());
+			assertEquals(1, statistics.get("listing").getFailures());
+			assertEquals(1, statistics.get("pom").getRetries());
+			assertEquals(0, statistics.get("pom").getFailures());
+			assertEquals(5 * 2 + 3 + 1, repository.getFailureCount());
+		}
+	}
+
+	@Test
+	void testPomHeads(@TempDir Path dir) throws Exception {
+		final Path catalog = dir.resolve("archetype-catalog.xml");
+		try (StubRepository repository = StubRepository.started()) {
+			final ImmutableSet<ArtifactWithReleases> expected = repository.populate(catalog);
+			repository.padPoms(4000);
+			try (Fetcher fetcher = Fetcher.concurrent(repository.getUri(), 4, 4)) {
+				assertEquals(expected, fetcher.getAllReleases(catalog, ImmutableSet.of(), Fetcher.Descriptions.ALL));
+			}
+			final long whole = repository.getBytesSent();
+
+			/** The POMs with no description are requested twice. */
+			try (Fetcher fetcher = Fetcher.ranged(repository.getUri(), 4, 4, ValidatorStore.empty(), 512)) {
+				assertEquals(expected, fetcher.getAllReleases(catalog, ImmutableSet.of(), Fetcher.Descriptions.ALL));
+				assertTrue(fetcher.getMetrics().getCounts().get("pom bytes saved") > 0);
+			}
+			final long ranged = repository.getBytesSent() - whole;
+			assertTrue(ranged < whole / 2, ranged + " out of " + whole);
+
+			repository.setRangesSupported(false);
+			try (Fetcher fetcher = Fetcher.ranged(repository.getUri(), 4, 4, ValidatorStore.empty(), 512)) {
+				assertEquals(expected, fetcher.getAllReleases(catalog, ImmutableSet.of(), Fetcher.Descriptions.ALL));
+				assertFalse(fetcher.getMetrics().getCounts().containsKey("pom bytes saved"));
+			}
+		}
+	}
+
+	/**
+	 * Compressed responses are decompressed as they are parsed, through the pool
+	 * as through the JDK client; and the catalog is still downloaded only if
+	 * modified.
+	 */
+	@Test
+	void testCompression(@TempDir Path dir) throws Exception {
+		final Path catalog = dir.resolve("archetype-catalog.xml");
+		try (StubRepository repository = StubRepository.started()) {
+			final ImmutableSet<ArtifactWithReleases> expected = repository.populate(catalog);
+			final Instant plainStart = Instant.now();
+			try (Fetcher fetcher = Fetcher.concurrent(repository.getUri(), 4, 4)) {
+				assertEquals(expected, fetcher.getAllReleases(catalog, ImmutableSet.of(), Fetcher.Descriptions.ALL));
+			}
+			final Duration plainTime = Duration.between(plainStart, Instant.now());
+			final long plain = repository.getBytesSent();
+
+			repository.setCompressing(true);
+			final Instant compressedStart = Instant.now();
+			try (Fetcher fetcher = Fetcher.concurrent(repository.getUri(), 4, 4)) {
+				assertEquals(expected, fetcher.getAllReleases(catalog, ImmutableSet.of(), Fetcher.Descriptions.ALL));
+			}
+			final Duration compressedTime = Duration.between(compressedStart, Instant.now());
+			final long compressed = repository.getBytesSent() - plain;
+
+			final Instant multiplexedStart = Instant.now();
+			try (Fetcher fetcher = Fetcher.multiplexed(repository.getUri(), 4, 4, ValidatorStore.empty())) {
+				assertEquals(expected, fetcher.getAllReleases(catalog, ImmutableSet.of(), Fetcher.Descriptions.ALL));
+			}
+			final Duration multiplexedTime = Duration.between(multiplexedStart, Instant.now());
+			final long multiplexed = repository.getBytesSent() - plain - compressed;
+			LOGGER.info("Plain: {} bytes in {}; compressed: {} bytes in {}; through the JDK client: {} bytes in {}.",
+					plain, plainTime, compressed, compressedTime, multiplexed, multiplexedTime);
+			assertTrue(compressed < plain * 3 / 4, compressed + " out of " + plain);
+			assertEquals(compressed, multiplexed);
+
+			repository.put("archetype-catalog.xml", Files.readString(catalog));
+			final Path copy = dir.resolve("copy.xml");
+			final Path lastModified = dir.resolve("copy.last-modified.txt");
+			try (PooledClient client = PooledClient.compressed(1, 1, PooledClient.DEFAULT_CONNECT_TIMEOUT,
+					PooledClient.DEFAULT_READ_TIMEOUT)) {
+				final WebTarget target = client.target(repository.getUri().resolve("archetype-catalog.xml"));
+				assertTrue(Downloader.saving(copy, lastModified).readAndDownload(target));
+				assertEquals(Files.readString(catalog), Files.readString(copy));
+				assertFalse(Downloader.saving(copy, lastModified).readAndDownload(target));
+			}
+		}
+	}
+
+	/**
+	 * The plain pool asks for no encoding, so that it may ask for byte ranges.
+	 */
+	@Test
+	void testUncompressed(@TempDir Path dir) throws Exception {
+		final Path catalog = dir.resolve("archetype-catalog.xml");
+		try (StubRepository repository = StubRepository.started()) {
+			repository.populate(catalog);
+			repository.put("archetype-catalog.xml", Files.readString(catalog));
+			repository.setCompressing(true);
+			final Path copy = dir.resolve("copy.xml");
+			final Path lastModified = dir.resolve("copy.last-modified.txt");
+			try (PooledClient client = PooledClient.given(1, 1, PooledClient.DEFAULT_CONNECT_TIMEOUT,
+					PooledClient.DEFAULT_READ_TIMEOUT)) {
+				final WebTarget target = client.target(repository.getUri().resolve("archetype-catalog.xml"));
+				assertTrue(Downloader.saving(copy, lastModified).readAndDownload(target));
+			}
+			assertEquals(ImmutableSet.of(), repository.getAcceptedEncodings());
+			assertEquals(Files.size(catalog), repository.getBytesSent());
+
+			try (PooledClient client = PooledClient.compressed(1, 1, PooledClient.DEFAULT_CONNECT_TIMEOUT,
+					PooledClient.DEFAULT_READ_TIMEOUT)) {
+				final WebTarget target = client.target(repository.getUri().resolve("archetype-catalog.xml"));
+				assertTrue(Downloader.saving(dir.resolve("other.xml"), dir.resolve("other.last-modified.txt"))
+						.readAndDownload(target));
+			}
+			assertTrue(repository.getAcceptedEncodings().stream().anyMatch(e -> e.contains("gzip")));
+		}
+	}
+
+	/**
+	 * A body that stalls fails to be read, instead of blocking its reader, through
+	 * the JDK client, whose own timeout stops at the headers.
+	 */
+	@Test
+	void testStalledBody() throws Exception {
+		try (StubRepository repository = StubRepository.started()) {
+			repository.put("archetype-catalog.xml", "x".repeat(100_000));
+			repository.setStalling(true);
+			try (PooledClient client = PooledClient.multiplexed(PooledClient.DEFAULT_CONNECT_TIMEOUT,
+					Duration.ofMillis(500))) {
+				final WebTarget target = client.target(repository.getUri().resolve("archetype-catalog.xml"));
+				try (Response response = target.request().get()) {
+					assertEquals(200, response.getStatus());
+					assertThrows(ProcessingException.class, () -> response.readEntity(String.class));
+				}
+			}
+		}
+	}
+
+	@Test
+	void testMirror(@TempDir Path dir) throws Exception {
+		final Path root = dir.resolve("maven2");
+		final ImmutableSet.Builder<ArtifactWithReleases> expectedBuilder = ImmutableSet.builder();
+		final StringBuilder catalog = new StringBuilder();
+		catalog.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<archetype-catalog>\n  <archetypes>\n");
+		for (int i = 0; i < 6; ++i) {
+			final Artifact artifact = Artifact.given("io.github.stub" + (i % 2), "stub-archetype-" + i);
+			catalog.append("    <archetype>\n      <groupId>").append(artifact.getGroupId())
+					.append("</groupId>\n      <artifactId>").append(artifact.getArtifactId())
+					.append("</artifactId>\n      <version>1.0</version>\n    </archetype>\n");
+			/** A ghost entry of the catalog, with no directory. */
+			if (i == 5) {
+				continue;
+			}
+			final Path directory = root.resolve(artifact.getGroupIdSlashSeparated()).resolve(artifact.getArtifactId());
+			final ImmutableSet.Builder<ArtifactRelease> releases = ImmutableSet.builder();
+			for (int v = 0; v < 1 + i % 3; ++v) {
+				final String version = "1." + v;
+				final Path versionDirectory = Files.createDirectories(directory.resolve(version));
+				final Instant date = Instant.parse("2015-01-01T10:00:00Z").plusSeconds(86400L * (i * 10 + v));
+				final String description;
+				/** A missing POM, whose release is dated by its directory. */
+				if (i == 1 && v == 0) {
+					description = "";
+					Files.setLastModifiedTime(versionDirectory, FileTime.from(date));
+				} else {
+					description = i == 2 ? "" : "Stub archetype " + i + " version " + version;
+					final Path pom = Files.writeString(
+							versionDirectory.resolve(artifact.getArtifactId() + "-" + version + ".pom"),
+							StubRepository.pom(artifact, version, description));
+					Files.setLastModifiedTime(pom, FileTime.from(date));
+				}
+				releases.add(ArtifactRelease.given(artifact, version, description, date));
+			}
+			Files.writeString(directory.resolve("maven-metadata.xml"), "<metadata/>\n");
+			expectedBuilder.add(ArtifactWithReleases.given(releases.build()));
+		}
+		catalog.append("  </archetypes>\n</archetype-catalog>\n");
+		final Path catalogPath = Files.writeString(root.resolve("archetype-catalog.xml"), catalog.toString());
+
+		try (Fetcher fetcher = Fetcher.using(FileRepository.at(root), 4)) {
+			assertEquals(expectedBuilder.build(),
+					fetcher.getAllReleases(catalogPath, ImmutableSet.of(), Fetcher.Descriptions.ALL));
+			assertTrue(fetcher.getStatistics().isEmpty());
+			assertEquals(8, fetcher.getMetrics().getLatencies().get("pom read").getCount());
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package io.github.oliviercailloux.archetypes_browser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+class ReleaseTableTests {
+	@Test
+	void testSameAsObjects() throws Exception {
+		final ImmutableSet.Builder<ArtifactWithReleases> builder = ImmutableSet.builder();
+		for (int i = 0; i < 30; ++i) {
+			final Artifact artifact = Artifact.given("io.github.group" + (i % 3), "archetype-" + i);
+			final ImmutableSet.Builder<ArtifactRelease> releases = ImmutableSet.builder();
+			for (int v = 0; v < 1 + i % 4; ++v) {
+				final Instant date = (i + v) % 5 == 0 ? Fetcher.EARLY
+						: Instant.parse("2010-01-01T10:00:00Z").plusSeconds(86400L * ((i * 37 + v * 101) % 4000));
+				releases.add(ArtifactRelease.given(artifact, "1." + v, "Archetype " + (i % 7), date));
+			}
+			builder.add(ArtifactWithReleases.given(releases.build()));
+		}
+		final ImmutableSet<ArtifactWithReleases> artifacts = builder.build();
+		final ReleaseTable table = ReleaseTable.of(artifacts);
+
+		final ImmutableList<ArtifactRelease> releases = artifacts.stream().flatMap(a -> a.getReleases().stream())
+				.collect(ImmutableList.toImmutableList());
+		assertEquals(releases.size(), table.size());
+		for (int row = 0; row < table.size(); ++row) {
+			assertEquals(releases.get(row), table.getRelease(row));
+		}
+
+		final Instant start = Instant.parse("2012-01-01T00:00:00Z");
+		final Instant end = Instant.parse("2018-01-01T00:00:00Z");
+		assertEquals(releases.stream().filter(r -> !r.getReleaseDate().isBefore(start))
+				.filter(r -> r.getReleaseDate().isBefore(end)).count(), table.countReleasedBetween(start, end));
+
+		final ImmutableList<Artifact> expected = artifacts.stream()
+				.filter(a -> a.getVersionsByDate().firstKey().isBefore(start))
+				.filter(a -> a.getVersionsByDate().lastKey().isAfter(end)).map(ArtifactWithReleases::getArtifact)
+				.collect(ImmutableList.toImmutableList());
+		assertEquals(expected, table.getArtifactsReleasedBeforeAndAfter(start, end));
+	}
+}
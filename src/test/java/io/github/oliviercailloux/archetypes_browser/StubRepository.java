@@ -0,0 +1,410 @@
+package io.github.oliviercailloux.archetypes_browser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local HTTP server that mimics the layout of Maven Central: directory
+ * listings for artifacts and POMs for releases.
+ */
+class StubRepository implements AutoCloseable {
+	private static final DateTimeFormatter LISTING_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")
+			.withZone(ZoneOffset.UTC);
+
+	private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=0-([0-9]+)");
+
+	private static final DateTimeFormatter HTTP_FORMATTER = DateTimeFormatter.RFC_1123_DATE_TIME
+			.withZone(ZoneId.of("GMT"));
+
+	/**
+	 * The last modification date of the resources, unless otherwise specified.
+	 */
+	public static final Instant LAST_MODIFIED = Instant.parse("2019-08-14T13:58:00Z");
+
+	public static StubRepository started() throws IOException {
+		final StubRepository repository = new StubRepository();
+		repository.server.start();
+		return repository;
+	}
+
+	/**
+	 * Returns a listing in the style of Maven Central. A release date equal to
+	 * {@link Fetcher#EARLY} is rendered as unknown.
+	 */
+	public static String listing(String path, Map<String, Instant> versions, boolean oldMode) {
+		final StringBuilder builder = new StringBuilder();
+		builder.append("<!DOCTYPE html>\n<html>\n<head>\n<title>Central Repository: ").append(path)
+				.append("</title>\n</head>\n<body>\n<header>\n<h1>").append(path)
+				.append("</h1>\n</header>\n<hr/>\n<main>\n<pre id=\"contents\">\n<a href=\"../\">../</a>\n");
+		for (Map.Entry<String, Instant> entry : versions.entrySet()) {
+			final String href = entry.getKey() + "/";
+			final String title = oldMode ? "" : " title=\"" + href + "\"";
+			builder.append("<a href=\"").append(href).append("\"").append(title).append(">").append(href)
+					.append("</a>");
+			if (entry.getValue().equals(Fetcher.EARLY)) {
+				builder.append("                                         -         -      \n");
+			} else {
+				builder.append("                               ").append(LISTING_FORMATTER.format(entry.getValue()))
+						.append("         -      \n");
+			}
+		}
+		if (!oldMode) {
+			for (String name : ImmutableSet.of("maven-metadata.xml", "maven-metadata.xml.md5",
+					"maven-metadata.xml.sha1")) {
+				builder.append("<a href=\"").append(name).append("\" title=\"").append(name).append("\">")
+						.append(name).append("</a>                 2019-08-14 13:58       943      \n");
+			}
+		}
+		builder.append("</pre>\n</main>\n<hr/>\n</body>\n</html>\n");
+		return builder.toString();
+	}
+
+	public static String pom(Artifact artifact, String version, String description) {
+		final String descriptionElement = description.isEmpty() ? ""
+				: "  <description>" + description + "</description>\n";
+		return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n"
+				+ "  <modelVersion>4.0.0</modelVersion>\n  <groupId>" + artifact.getGroupId()
+				+ "</groupId>\n  <artifactId>" + artifact.getArtifactId() + "</artifactId>\n  <version>" + version
+				+ "</version>\n  <packaging>maven-archetype</packaging>\n" + descriptionElement + "</project>\n";
+	}
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final Map<String, byte[]> resources;
+	private final Map<String, Instant> lastModifieds;
+	private final AtomicInteger requestCount;
+	private final AtomicInteger notModifiedCount;
+	private final AtomicInteger inFlight;
+	private final AtomicInteger maxInFlight;
+	/**
+	 * The failures still to inject, by path.
+	 */
+	private final Map<String, Failure> failures;
+	private final AtomicInteger failureCount;
+	/**
+	 * The client ends of the connections that have been opened to this server.
+	 */
+	private final Set<InetSocketAddress> connections;
+	private volatile boolean rangesSupported;
+	private volatile boolean compressing;
+	private volatile boolean stalling;
+	private final AtomicLong bytesSent;
+	/**
+	 * The values of the Accept-Encoding headers received so far.
+	 */
+	private final Set<String> acceptedEncodings;
+
+	private StubRepository() throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		executor = Executors.newCachedThreadPool();
+		server.setExecutor(executor);
+		server.createContext("/", this::handle);
+		resources = new ConcurrentHashMap<>();
+		lastModifieds = new ConcurrentHashMap<>();
+		requestCount = new AtomicInteger();
+		notModifiedCount = new AtomicInteger();
+		inFlight = new AtomicInteger();
+		maxInFlight = new AtomicInteger();
+		connections = ConcurrentHashMap.newKeySet();
+		failures = new ConcurrentHashMap<>();
+		failureCount = new AtomicInteger();
+		rangesSupported = true;
+		compressing = false;
+		stalling = false;
+		bytesSent = new AtomicLong();
+		acceptedEncodings = ConcurrentHashMap.newKeySet();
+	}
+
+	private static class Failure {
+		private final int status;
+		private final Optional<String> retryAfter;
+		private final AtomicInteger remaining;
+
+		private Failure(int status, Optional<String> retryAfter, int count) {
+			this.status = status;
+			this.retryAfter = retryAfter;
+			remaining = new AtomicInteger(count);
+		}
+	}
+
+	public URI getUri() {
+		return URI.create("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort()
+				+ "/maven2/");
+	}
+
+	/**
+	 * @param path relative to {@link #getUri()}, with no leading slash.
+	 */
+	public void put(String path, String content) {
+		put(path, content, LAST_MODIFIED);
+	}
+
+	/**
+	 * @param lastModified sent in the Last-Modified header, and compared to the
+	 *                     If-Modified-Since header of conditional requests.
+	 */
+	public void put(String path, String content, Instant lastModified) {
+		lastModifieds.put("/maven2/" + path, lastModified);
+		resources.put("/maven2/" + path, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Serves the listing of the given artifact and a POM for each of its
+	 * versions, except for the versions whose description is absent from the
+	 * given descriptions.
+	 */
+	public void putArtifact(Artifact artifact, Map<String, Instant> versions, Map<String, String> descriptions) {
+		putArtifact(artifact, versions, descriptions, LAST_MODIFIED);
+	}
+
+	/**
+	 * Serves the listing of the given artifact and the POMs of the given
+	 * descriptions, as modified at the given date; leaves any other POM
+	 * untouched.
+	 */
+	public void putArtifact(Artifact artifact, Map<String, Instant> versions, Map<String, String> descriptions,
+			Instant lastModified) {
+		final String artifactPath = artifact.getGroupIdSlashSeparated() + "/" + artifact.getArtifactId() + "/";
+		put(artifactPath, listing(artifactPath, versions, false), lastModified);
+		for (String version : versions.keySet()) {
+			if (descriptions.containsKey(version)) {
+				put(artifactPath + version + "/" + artifact.getArtifactId() + "-" + version + ".pom",
+						pom(artifact, version, descriptions.get(version)), lastModified);
+			}
+		}
+	}
+
+	/**
+	 * Populates this repository with a set of artifacts exhibiting the oddities
+	 * the fetcher must handle, and writes the corresponding catalog.
+	 *
+	 * @return the expected result of crawling the catalog.
+	 */
+	public ImmutableSet<ArtifactWithReleases> populate(Path catalogPath) throws IOException {
+		final ImmutableSet.Builder<ArtifactWithReleases> expected = ImmutableSet.builder();
+		final StringBuilder catalog = new StringBuilder();
+		catalog.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<archetype-catalog>\n  <archetypes>\n");
+		for (int i = 0; i < 30; ++i) {
+			final Artifact artifact = Artifact.given("io.github.stub" + (i % 4), "stub-archetype-" + i);
+			final ImmutableMap.Builder<String, Instant> versionsBuilder = ImmutableMap.builder();
+			final ImmutableMap.Builder<String, String> descriptionsBuilder = ImmutableMap.builder();
+			final ImmutableSet.Builder<ArtifactRelease> releases = ImmutableSet.builder();
+			for (int v = 0; v < 1 + i % 5; ++v) {
+				final String version = "1." + v;
+				final Instant date = (i % 7 == 3 && v == 0) ? Fetcher.EARLY
+						: Instant.parse("2015-01-01T10:00:00Z").plusSeconds(86400L * (i * 10 + v));
+				/** Some POMs are missing, some have no description. */
+				final boolean hasPom = !(i % 6 == 1 && v == 0);
+				final String description = (hasPom && i % 5 != 2) ? "Stub archetype " + i + " version " + version
+						: "";
+				versionsBuilder.put(version, date);
+				if (hasPom) {
+					descriptionsBuilder.put(version, description);
+				}
+				releases.add(ArtifactRelease.given(artifact, version, description, date));
+			}
+			catalog.append("    <archetype>\n      <groupId>").append(artifact.getGroupId())
+					.append("</groupId>\n      <artifactId>").append(artifact.getArtifactId())
+					.append("</artifactId>\n      <version>1.0</version>\n    </archetype>\n");
+			/** A ghost entry of the catalog, with no listing. */
+			if (i % 10 == 9) {
+				continue;
+			}
+			putArtifact(artifact, versionsBuilder.build(), descriptionsBuilder.build());
+			expected.add(ArtifactWithReleases.given(releases.build()));
+		}
+		catalog.append("  </archetypes>\n</archetype-catalog>\n");
+		Files.writeString(catalogPath, catalog.toString());
+		return expected.build();
+	}
+
+	/**
+	 * Answers the given number of next requests for the given path with the given
+	 * status, and the given Retry-After header, if any.
+	 *
+	 * @param path relative to {@link #getUri()}, with no leading slash.
+	 */
+	public void failNext(String path, int count, int status, Optional<String> retryAfter) {
+		failures.put("/maven2/" + path, new Failure(status, retryAfter, count));
+	}
+
+	/**
+	 * Adds a comment of the given length at the end of every POM served so far,
+	 * as long dependency management and profile sections would.
+	 */
+	public void padPoms(int length) {
+		final String padding = "<!-- " + "x".repeat(length - 10) + " -->\n";
+		for (String path : resources.keySet()) {
+			if (path.endsWith(".pom")) {
+				final String pom = new String(resources.get(path), StandardCharsets.UTF_8);
+				resources.put(path, pom.replace("</project>", padding + "</project>").getBytes(StandardCharsets.UTF_8));
+			}
+		}
+	}
+
+	/**
+	 * @param supported if false, Range headers are ignored, and whole bodies are
+	 *                  sent, as some servers do.
+	 */
+	public void setRangesSupported(boolean supported) {
+		rangesSupported = supported;
+	}
+
+	/**
+	 * @param compressing if true, whole bodies are compressed with gzip when the
+	 *                    request accepts it.
+	 */
+	public void setCompressing(boolean compressing) {
+		this.compressing = compressing;
+	}
+
+	/**
+	 * @param stalling if true, bodies stop after their first half, until this
+	 *                 server is closed.
+	 */
+	public void setStalling(boolean stalling) {
+		this.stalling = stalling;
+	}
+
+	/**
+	 * @return the number of bytes sent so far in the bodies of the responses, as
+	 *         encoded.
+	 */
+	public long getBytesSent() {
+		return bytesSent.get();
+	}
+
+	public ImmutableSet<String> getAcceptedEncodings() {
+		return ImmutableSet.copyOf(acceptedEncodings);
+	}
+
+	public int getFailureCount() {
+		return failureCount.get();
+	}
+
+	public int getRequestCount() {
+		return requestCount.get();
+	}
+
+	public int getNotModifiedCount() {
+		return notModifiedCount.get();
+	}
+
+	public int getMaxInFlight() {
+		return maxInFlight.get();
+	}
+
+	public int getConnectionCount() {
+		return connections.size();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		requestCount.incrementAndGet();
+		connections.add(exchange.getRemoteAddress());
+		acceptedEncodings.addAll(exchange.getRequestHeaders().getOrDefault("Accept-Encoding", ImmutableList.of()));
+		maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+		try {
+			/** Lets concurrent requests overlap, so that in-flight limits show. */
+			Thread.sleep(5);
+			final String path = exchange.getRequestURI().getPath();
+			final byte[] content = resources.get(path);
+			final String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+			final Failure failure = failures.get(path);
+			if (failure != null && failure.remaining.getAndDecrement() > 0) {
+				failureCount.incrementAndGet();
+				failure.retryAfter.ifPresent(r -> exchange.getResponseHeaders().add("Retry-After", r));
+				exchange.sendResponseHeaders(failure.status, -1);
+			} else if (content == null) {
+				exchange.sendResponseHeaders(404, -1);
+			} else if (ifModifiedSince != null
+					&& !lastModifieds.get(path).isAfter(HTTP_FORMATTER.parse(ifModifiedSince, Instant::from))) {
+				notModifiedCount.incrementAndGet();
+				exchange.sendResponseHeaders(304, -1);
+			} else {
+				exchange.getResponseHeaders().add("Content-Type", "text/html");
+				exchange.getResponseHeaders().add("Last-Modified", HTTP_FORMATTER.format(lastModifieds.get(path)));
+				final Matcher range = RANGE_PATTERN
+						.matcher(Strings.nullToEmpty(exchange.getRequestHeaders().getFirst("Range")));
+				final byte[] sent;
+				if (rangesSupported && range.matches()) {
+					sent = Arrays.copyOf(content, Math.min(Integer.parseInt(range.group(1)) + 1, content.length));
+					exchange.getResponseHeaders().add("Content-Range",
+							"bytes 0-" + (sent.length - 1) + "/" + content.length);
+					exchange.sendResponseHeaders(206, sent.length);
+				} else if (compressing && accepts(exchange, "gzip")) {
+					sent = gzip(content);
+					exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+					exchange.sendResponseHeaders(200, sent.length);
+				} else {
+					sent = content;
+					exchange.sendResponseHeaders(200, sent.length);
+				}
+				bytesSent.addAndGet(sent.length);
+				if (stalling) {
+					final OutputStream body = exchange.getResponseBody();
+					body.write(sent, 0, sent.length / 2);
+					body.flush();
+					Thread.sleep(Long.MAX_VALUE);
+				}
+				try (OutputStream body = exchange.getResponseBody()) {
+					body.write(sent);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			exchange.sendResponseHeaders(503, -1);
+		} finally {
+			inFlight.decrementAndGet();
+			exchange.close();
+		}
+	}
+
+	private static boolean accepts(HttpExchange exchange, String encoding) {
+		return exchange.getRequestHeaders().getOrDefault("Accept-Encoding", ImmutableList.of()).stream()
+				.anyMatch(e -> e.contains(encoding));
+	}
+
+	private static byte[] gzip(byte[] content) throws IOException {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+			gzip.write(content);
+		}
+		return output.toByteArray();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,85 @@
+package io.github.oliviercailloux.archetypes_browser.formats;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.base.VerifyException;
+import com.google.common.collect.ImmutableSet;
+
+import io.github.oliviercailloux.archetypes_browser.ArtifactWithReleases;
+
+class BinaryArtifactsTests {
+	@Test
+	void testRoundTripWithJson(@TempDir Path dir) throws Exception {
+		final ByteArrayOutputStream json = new ByteArrayOutputStream();
+		try (JsonArtifacts.ReleasesWriter writer = JsonArtifacts.writer(json)) {
+			JsonArtifactsTests.getArtifacts().forEach(writer::write);
+		}
+		final ImmutableSet<ArtifactWithReleases> fromJson = JsonArtifacts
+				.withReleasesFromJson(new ByteArrayInputStream(json.toByteArray()));
+
+		final Path snapshot = dir.resolve("Artifacts.bin");
+		BinaryArtifacts.write(fromJson, snapshot);
+		final ImmutableSet<ArtifactWithReleases> read = BinaryArtifacts.read(snapshot);
+		assertEquals(ImmutableList.copyOf(fromJson), ImmutableList.copyOf(read));
+
+		final ByteArrayOutputStream jsonAgain = new ByteArrayOutputStream();
+		try (JsonArtifacts.ReleasesWriter writer = JsonArtifacts.writer(jsonAgain)) {
+			read.forEach(writer::write);
+		}
+		assertEquals(json.toString(StandardCharsets.UTF_8), jsonAgain.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testStore(@TempDir Path dir) throws Exception {
+		final ImmutableSet<ArtifactWithReleases> artifacts = JsonArtifactsTests.getArtifacts();
+		final Path snapshot = dir.resolve("Artifacts.bin");
+		BinaryArtifacts.write(artifacts, snapshot);
+		final ReleaseStore store = ReleaseStore.open(snapshot);
+		assertEquals(artifacts.size(), store.size());
+		assertEquals(artifacts, store);
+		assertEquals(ImmutableList.copyOf(artifacts), ImmutableList.copyOf(store));
+		final ArtifactWithReleases last = artifacts.asList().get(artifacts.size() - 1);
+		assertEquals(last.getArtifact(), store.getArtifact(artifacts.size() - 1));
+		assertEquals(last, store.get(artifacts.size() - 1));
+	}
+
+	/**
+	 * Snapshots of the first layout, and snapshots whose footer does not match
+	 * their size, are rejected when opened.
+	 */
+	@Test
+	void testRejected(@TempDir Path dir) throws Exception {
+		final Path snapshot = dir.resolve("Artifacts.bin");
+		BinaryArtifacts.write(JsonArtifactsTests.getArtifacts(), snapshot);
+		final byte[] bytes = Files.readAllBytes(snapshot);
+
+		final Path old = dir.resolve("Old.bin");
+		final byte[] oldBytes = bytes.clone();
+		ByteBuffer.wrap(oldBytes).putInt(0, 0x41524231);
+		Files.write(old, oldBytes);
+		assertThrows(VerifyException.class, () -> ReleaseStore.open(old));
+
+		final Path truncated = dir.resolve("Truncated.bin");
+		Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 1));
+		assertThrows(VerifyException.class, () -> ReleaseStore.open(truncated));
+
+		final Path corrupt = dir.resolve("Corrupt.bin");
+		final byte[] corruptBytes = bytes.clone();
+		ByteBuffer.wrap(corruptBytes).putInt(corruptBytes.length - Integer.BYTES, Integer.MAX_VALUE);
+		Files.write(corrupt, corruptBytes);
+		assertThrows(VerifyException.class, () -> BinaryArtifacts.read(corrupt));
+	}
+}
@@ -0,0 +1,57 @@
+package io.github.oliviercailloux.archetypes_browser.formats;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.common.collect.ImmutableSet;
+
+import io.github.oliviercailloux.archetypes_browser.Artifact;
+import io.github.oliviercailloux.archetypes_browser.ArtifactRelease;
+import io.github.oliviercailloux.archetypes_browser.ArtifactWithReleases;
+
+class CsvArtifactsTests {
+	@Test
+	void testStreamed(@TempDir Path dir) throws Exception {
+		final ImmutableSet<ArtifactWithReleases> artifacts = JsonArtifactsTests.getArtifacts();
+		final ImmutableSet<ArtifactRelease> releases = artifacts.stream().flatMap(a -> a.getReleases().stream())
+				.collect(ImmutableSet.toImmutableSet());
+		final String csv = CsvArtifacts.toCsv(releases);
+		assertEquals(1 + releases.size(), csv.lines().count());
+		assertEquals("groupId,artifactId,version,release date", csv.lines().findFirst().get());
+
+		final Path path = dir.resolve("Artifacts.csv");
+		CsvArtifacts.toCsv(artifacts.stream().flatMap(a -> a.getReleases().stream()), path);
+		assertEquals(csv, Files.readString(path));
+
+		final Path groupedPath = dir.resolve("Artifacts grouped.csv");
+		CsvArtifacts.toCsvGrouped(artifacts.stream(), groupedPath);
+		assertEquals(CsvArtifacts.toCsvGrouped(artifacts), Files.readString(groupedPath));
+	}
+
+	@Test
+	void testParallel(@TempDir Path dir) throws Exception {
+		/** Enough artifacts for several chunks. */
+		final ImmutableSet.Builder<ArtifactWithReleases> builder = ImmutableSet.builder();
+		for (int i = 0; i < 100; ++i) {
+			for (ArtifactWithReleases artifact : JsonArtifactsTests.getArtifacts()) {
+				final Artifact copy = Artifact.given(artifact.getArtifact().getGroupId(),
+						artifact.getArtifact().getArtifactId() + "-" + i);
+				builder.add(ArtifactWithReleases.given(artifact.getReleases().stream()
+						.map(r -> ArtifactRelease.given(copy, r.getVersion(), r.getDescription(), r.getReleaseDate()))
+						.collect(ImmutableSet.toImmutableSet())));
+			}
+		}
+		final ImmutableSet<ArtifactWithReleases> artifacts = builder.build();
+		final Path sequential = dir.resolve("sequential.csv");
+		CsvArtifacts.toCsvGrouped(artifacts.stream(), sequential);
+		final Path parallel = dir.resolve("parallel.csv");
+		CsvArtifacts.toCsvGroupedParallel(artifacts, parallel);
+		assertArrayEquals(Files.readAllBytes(sequential), Files.readAllBytes(parallel));
+	}
+}
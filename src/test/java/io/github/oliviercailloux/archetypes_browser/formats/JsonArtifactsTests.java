@@ -0,0 +1,55 @@
+package io.github.oliviercailloux.archetypes_browser.formats;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import io.github.oliviercailloux.archetypes_browser.Artifact;
+import io.github.oliviercailloux.archetypes_browser.ArtifactRelease;
+import io.github.oliviercailloux.archetypes_browser.ArtifactWithReleases;
+import io.github.oliviercailloux.archetypes_browser.Fetcher;
+
+class JsonArtifactsTests {
+	static ImmutableSet<ArtifactWithReleases> getArtifacts() {
+		final ImmutableSet.Builder<ArtifactWithReleases> builder = ImmutableSet.builder();
+		for (int i = 0; i < 20; ++i) {
+			final Artifact artifact = Artifact.given("io.github.group" + (i % 3), "archetype-" + i);
+			final ImmutableSet.Builder<ArtifactRelease> releases = ImmutableSet.builder();
+			for (int v = 0; v < 1 + i % 4; ++v) {
+				final Instant date = v == 0 ? Fetcher.EARLY
+						: Instant.parse("2015-01-01T10:00:00Z").plusSeconds(3600L * (i * 10 + v));
+				final String description = i % 5 == 2 ? "" : "Archetype “" + i + "”, with \"quotes\"\nand lines";
+				releases.add(ArtifactRelease.given(artifact, "1." + v, description, date));
+			}
+			builder.add(ArtifactWithReleases.given(releases.build()));
+		}
+		return builder.build();
+	}
+
+	@Test
+	void testRoundTrip() throws Exception {
+		final ImmutableSet<ArtifactWithReleases> artifacts = getArtifacts();
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (JsonArtifacts.ReleasesWriter writer = JsonArtifacts.writer(output)) {
+			artifacts.forEach(writer::write);
+		}
+		final ImmutableSet<ArtifactWithReleases> read = JsonArtifacts
+				.withReleasesFromJson(new ByteArrayInputStream(output.toByteArray()));
+		assertEquals(artifacts, read);
+		assertEquals(ImmutableList.copyOf(artifacts), ImmutableList.copyOf(read));
+
+		/** The streamed document is the one that JSON-B reads and writes. */
+		assertEquals(artifacts, JsonArtifacts.withReleasesFromJson(output.toString(StandardCharsets.UTF_8)));
+		final String bound = JsonArtifacts.withReleasesToJson(artifacts).toString();
+		assertEquals(artifacts,
+				JsonArtifacts.withReleasesFromJson(new ByteArrayInputStream(bound.getBytes(StandardCharsets.UTF_8))));
+	}
+}
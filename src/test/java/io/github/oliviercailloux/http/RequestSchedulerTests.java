@@ -0,0 +1,107 @@
+package io.github.oliviercailloux.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.ProcessingException;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+
+class RequestSchedulerTests {
+	private static final URI REPOSITORY = URI.create("https://repo.example.org/maven2/");
+
+	@Test
+	void testRateLimit() throws Exception {
+		final RequestScheduler scheduler = RequestScheduler.given(50d, 1, 1, Duration.ZERO);
+		final long start = System.nanoTime();
+		for (int i = 0; i < 60; ++i) {
+			scheduler.call("test", REPOSITORY, () -> null);
+		}
+		/** A burst of 50, then 10 at 50 per second. */
+		final Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+		assertTrue(elapsed.compareTo(Duration.ofMillis(180)) >= 0, elapsed.toString());
+		assertEquals(60, scheduler.getStatistics().get("test").getAttempts());
+	}
+
+	@Test
+	void testRetries() throws Exception {
+		final RequestScheduler scheduler = RequestScheduler.given(Double.POSITIVE_INFINITY, 8, 3,
+				Duration.ofMillis(1));
+		final AtomicInteger attempts = new AtomicInteger();
+		assertEquals("Done", scheduler.call("test", REPOSITORY, () -> {
+			if (attempts.incrementAndGet() <= 2) {
+				throw new RequestScheduler.TransientStatusException(503, Optional.empty());
+			}
+			return "Done";
+		}));
+		assertEquals(2, scheduler.getStatistics().get("test").getRetries());
+		/** Halved twice. */
+		assertTrue(scheduler.getConcurrencyLimit(REPOSITORY) <= 2);
+
+		assertThrows(ProcessingException.class, () -> scheduler.call("failing", REPOSITORY, () -> {
+			throw new ProcessingException("Timeout");
+		}));
+		assertEquals(3, scheduler.getStatistics().get("failing").getAttempts());
+		assertEquals(1, scheduler.getStatistics().get("failing").getFailures());
+		assertEquals(1, scheduler.getConcurrencyLimit(REPOSITORY));
+
+		assertThrows(IllegalStateException.class, () -> scheduler.call("bug", REPOSITORY, () -> {
+			throw new IllegalStateException();
+		}));
+		assertEquals(0, scheduler.getStatistics().get("bug").getRetries());
+	}
+
+	@Test
+	void testMixedEndpoints() throws Exception {
+		final RequestScheduler scheduler = RequestScheduler.given(Double.POSITIVE_INFINITY, 8, 1, Duration.ZERO);
+		for (int i = 0; i < 30; ++i) {
+			scheduler.call("listing", REPOSITORY, () -> {
+				Uninterruptibles.sleepUninterruptibly(20, TimeUnit.MILLISECONDS);
+				return null;
+			});
+			scheduler.call("pom", REPOSITORY, attempt -> {
+				Uninterruptibles.sleepUninterruptibly(1, TimeUnit.MILLISECONDS);
+				attempt.responded();
+				/** Parsing a large body does not count. */
+				Uninterruptibles.sleepUninterruptibly(20, TimeUnit.MILLISECONDS);
+				return null;
+			});
+		}
+		/** Each endpoint is only compared to itself. */
+		assertTrue(scheduler.getConcurrencyLimit(REPOSITORY) >= 4);
+	}
+
+	@Test
+	void testInterrupted() throws Exception {
+		final RequestScheduler scheduler = RequestScheduler.given(Double.POSITIVE_INFINITY, 8, 3,
+				Duration.ofSeconds(10));
+		Thread.currentThread().interrupt();
+		try {
+			assertThrows(ProcessingException.class, () -> scheduler.call("test", REPOSITORY, () -> {
+				throw new RequestScheduler.TransientStatusException(503, Optional.empty());
+			}));
+			assertTrue(Thread.currentThread().isInterrupted());
+		} finally {
+			Thread.interrupted();
+		}
+		/** Failed during the backoff, without waiting for it. */
+		assertEquals(1, scheduler.getStatistics().get("test").getAttempts());
+		assertEquals(1, scheduler.getStatistics().get("test").getFailures());
+	}
+
+	@Test
+	void testRetryAfter() throws Exception {
+		assertEquals(Optional.of(Duration.ofSeconds(120)), RequestScheduler.parseDelay("120"));
+		assertEquals(Optional.of(Duration.ZERO), RequestScheduler.parseDelay("Wed, 21 Oct 2015 07:28:00 GMT"));
+		assertEquals(Optional.empty(), RequestScheduler.parseDelay("soon"));
+	}
+}
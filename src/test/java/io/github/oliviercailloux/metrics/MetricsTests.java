@@ -0,0 +1,38 @@
+package io.github.oliviercailloux.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class MetricsTests {
+	@Test
+	void testHistogram() throws Exception {
+		final LatencyHistogram histogram = LatencyHistogram.empty();
+		assertEquals(Duration.ZERO, histogram.getQuantile(0.5d));
+		for (int i = 1; i <= 100; ++i) {
+			histogram.record(i * 1000L);
+		}
+		assertEquals(100, histogram.getCount());
+		assertEquals(Duration.ofNanos(50_500), histogram.getMean());
+		/** The median, 50 µs, lies in [2^15, 2^16). */
+		assertEquals(Duration.ofNanos((1 << 16) - 1), histogram.getQuantile(0.5d));
+		assertEquals(Duration.ofNanos(100_000), histogram.getQuantile(1d));
+	}
+
+	@Test
+	void testPhases() throws Exception {
+		final Metrics metrics = Metrics.create();
+		final Metrics.Timing timing = metrics.start("fetch");
+		timing.addBytes(10);
+		timing.close();
+		timing.close();
+		metrics.record("fetch", 0, 5);
+		assertEquals("done", metrics.time("parse", () -> "done"));
+		assertEquals(2, metrics.getLatencies().get("fetch").getCount());
+		assertEquals(1, metrics.getLatencies().get("parse").getCount());
+		assertEquals(15L, (long) metrics.getBytes().get("fetch"));
+		assertEquals(15L, metrics.getTotalBytes());
+	}
+}